@@ -0,0 +1,73 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates the keys and values used by the JMH benchmarks.
+ *
+ * FixedSizeHashMap only stores the hash of each key, so two keys with the
+ * same {@link java.lang.String#hashCode()} would collide. Generated keys are
+ * guaranteed to have distinct hashes, which keeps every benchmark's state
+ * predictable.
+ */
+public final class BenchmarkData {
+    //CONSTANTS
+    /**
+     * The seed used for all generated data, so runs are comparable.
+     */
+    private static final long SEED = 0x4B504342L;
+
+    //CONSTRUCTOR
+    /**
+     * This class only has static methods.
+     */
+    private BenchmarkData() {}
+
+    //METHODS
+    /**
+     * Returns the given number of keys, all with distinct hashes.
+     *
+     * @param       count   the number of keys
+     * @return      an array of count keys
+     */
+    public static String[] keys(int count) {
+        String[] keys = new String[count];
+        Set<Integer> hashes = new HashSet<Integer>();
+        Random rg = new Random(SEED);
+        for (int i = 0; i < count; ) {
+            String key = "key_" + Long.toHexString(rg.nextLong());
+            if (hashes.add(key.hashCode())) keys[i++] = key;
+        }
+        return keys;
+    }
+    /**
+     * Returns the given number of values of the given type.
+     *
+     * @param       count       the number of values
+     * @param       valueType   one of String, Integer, or Boolean
+     * @return      an array of count values
+     * @throws      IllegalArgumentException    if valueType is not supported
+     */
+    public static Object[] values(int count, String valueType) {
+        Object[] values = new Object[count];
+        Random rg = new Random(SEED + 1);
+        for (int i = 0; i < count; i++) {
+            switch (valueType) {
+                case "String":
+                    values[i] = "value_" + rg.nextInt();
+                    break;
+                case "Integer":
+                    values[i] = rg.nextInt();
+                    break;
+                case "Boolean":
+                    values[i] = rg.nextBoolean();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown value type: " + valueType);
+            }
+        }
+        return values;
+    }
+}
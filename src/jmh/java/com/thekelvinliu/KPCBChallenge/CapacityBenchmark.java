@@ -0,0 +1,74 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks construction, filling to capacity, and churn at 90% load.
+ *
+ * Unlike the other benchmarks, construct and fillToCapacity report the time
+ * of the whole operation, not the time per entry.
+ */
+public class CapacityBenchmark extends MapBenchmark {
+    //INSTANCE VARIABLES
+    /**
+     * The 90% full hash map used by churn.
+     */
+    private FixedSizeHashMap<Object> map;
+    /**
+     * The number of keys in the 90% full hash map.
+     */
+    private int present;
+    /**
+     * The index of the first key churned by the next invocation.
+     */
+    private int cursor;
+
+    //SETUP
+    /**
+     * Fills the hash map to 90% of its size for churn.
+     */
+    protected void prepare() {
+        this.present = (int)(this.size*0.9);
+        this.map = this.filled(this.present);
+    }
+
+    //BENCHMARKS
+    /**
+     * Creates an empty hash map, which allocates every node.
+     *
+     * @return      the new hash map
+     */
+    @Benchmark
+    public FixedSizeHashMap<Object> construct() {
+        return new FixedSizeHashMap<Object>(this.size);
+    }
+    /**
+     * Creates a hash map and sets keys until it is full.
+     *
+     * @return      the full hash map
+     */
+    @Benchmark
+    public FixedSizeHashMap<Object> fillToCapacity() {
+        return this.filled(this.size);
+    }
+    /**
+     * Deletes and sets back keys of a 90% full hash map.
+     *
+     * Each operation is one delete followed by one set of the same key.
+     *
+     * @return      whether the last set succeeded
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public boolean churn() {
+        boolean ok = true;
+        int start = this.cursor;
+        for (int i = 0; i < OPS; i++) {
+            int j = (start + i)%this.present;
+            this.map.delete(this.keys[j]);
+            ok &= this.map.set(this.keys[j], this.values[j]);
+        }
+        this.cursor = (start + OPS)%this.present;
+        return ok;
+    }
+}
@@ -0,0 +1,88 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks churn at 90% load with and without a change feed attached.
+ *
+ * The feed has one subscriber, which drains it after every invocation,
+ * outside of the measured time. Its ring buffer holds more than the records
+ * published by one invocation, so BLOCK never waits and DROP never drops;
+ * the difference to NONE is the cost of publishing alone.
+ */
+public class ChangeFeedBenchmark extends MapBenchmark {
+    //CONSTANTS
+    /**
+     * The capacity of the feed's ring buffer.
+     */
+    private static final int CAPACITY = 4096;
+
+    //PARAMETERS
+    /**
+     * The policy of the attached feed, or NONE for no feed.
+     */
+    @Param({"NONE", "BLOCK", "DROP", "OVERWRITE"})
+    public String policy;
+
+    //INSTANCE VARIABLES
+    /**
+     * The benchmarked hash map, which is 90% full.
+     */
+    private FixedSizeHashMap<Object> map;
+    /**
+     * The only subscriber of the feed, or null for no feed.
+     */
+    private ChangeFeed<Object>.Subscriber subscriber;
+    /**
+     * The number of keys in the hash map.
+     */
+    private int present;
+    /**
+     * The index of the first key churned by the next invocation.
+     */
+    private int cursor;
+
+    //SETUP
+    /**
+     * Fills the hash map to 90% of its size and attaches the feed.
+     */
+    protected void prepare() {
+        this.present = (int)(this.size*0.9);
+        this.map = this.filled(this.present);
+        if (!this.policy.equals("NONE")) {
+            ChangeFeed<Object> feed = new ChangeFeed<Object>(CAPACITY,
+                ChangeFeed.Policy.valueOf(this.policy));
+            this.map.setChangeFeed(feed);
+            this.subscriber = feed.subscribe();
+        }
+    }
+    /**
+     * Drains the feed.
+     */
+    @TearDown(Level.Invocation)
+    public void drain() {
+        if (this.subscriber != null) {
+            this.subscriber.poll(record -> {}, CAPACITY);
+        }
+    }
+
+    //BENCHMARKS
+    /**
+     * Deletes and sets back keys, which publishes two records per operation.
+     *
+     * @return      whether the last set succeeded
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public boolean churn() {
+        boolean ok = true;
+        int start = this.cursor;
+        for (int i = 0; i < OPS; i++) {
+            int j = (start + i)%this.present;
+            this.map.delete(this.keys[j]);
+            ok &= this.map.set(this.keys[j], this.values[j]);
+        }
+        this.cursor = (start + OPS)%this.present;
+        return ok;
+    }
+}
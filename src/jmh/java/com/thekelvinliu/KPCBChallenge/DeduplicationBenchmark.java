@@ -0,0 +1,119 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks get and churn of a 90% full hash map of repetitive strings.
+ *
+ * Every value is a separate String instance drawn from a small set of
+ * distinct strings, the way values parsed from input would be. Comparing
+ * the deduplicate parameter shows the overhead of the value dictionary, and
+ * the gc profiler shows the difference in allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeduplicationBenchmark {
+    //CONSTANTS
+    /**
+     * The number of operations run by each invocation of a benchmark.
+     */
+    public static final int OPS = MapBenchmark.OPS;
+
+    //PARAMETERS
+    /**
+     * The fixed size of the benchmarked hash map.
+     */
+    @Param({"100000"})
+    public int size;
+    /**
+     * The number of distinct values.
+     */
+    @Param({"4000"})
+    public int distinct;
+    /**
+     * Whether the benchmarked hash map deduplicates its values.
+     */
+    @Param({"false", "true"})
+    public boolean deduplicate;
+
+    //INSTANCE VARIABLES
+    /**
+     * The benchmarked hash map.
+     */
+    private FixedSizeHashMap<String> map;
+    /**
+     * Keys with distinct hashes.
+     */
+    private String[] keys;
+    /**
+     * Separate String instances, one for each key.
+     */
+    private String[] values;
+    /**
+     * The number of keys in the hash map.
+     */
+    private int present;
+    /**
+     * The index of the first key used by the next invocation.
+     */
+    private int cursor;
+
+    //SETUP
+    /**
+     * Generates repetitive values and fills the hash map to 90%.
+     */
+    @Setup(Level.Trial)
+    public void fill() {
+        this.present = (int)(this.size*0.9);
+        this.keys = BenchmarkData.keys(this.present);
+        this.values = new String[this.present];
+        Random rg = new Random(this.size);
+        for (int i = 0; i < this.present; i++) {
+            this.values[i] = new String("status_" + rg.nextInt(this.distinct));
+        }
+        int flags = this.deduplicate ? FixedSizeHashMap.DEDUPLICATE : 0;
+        this.map = new FixedSizeHashMap<String>(this.size, flags);
+        for (int i = 0; i < this.present; i++) this.map.set(this.keys[i], this.values[i]);
+    }
+
+    //BENCHMARKS
+    /**
+     * Looks up keys that are in the hash map.
+     *
+     * @param       bh      consumes the returned values
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getHit(Blackhole bh) {
+        int start = this.cursor;
+        for (int i = 0; i < OPS; i++) {
+            bh.consume(this.map.get(this.keys[(start + i)%this.present]));
+        }
+        this.cursor = (start + OPS)%this.present;
+    }
+    /**
+     * Deletes and sets back keys, with a new String instance for each value.
+     *
+     * @return      whether the last set succeeded
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public boolean churn() {
+        boolean ok = true;
+        int start = this.cursor;
+        for (int i = 0; i < OPS; i++) {
+            int j = (start + i)%this.present;
+            this.map.delete(this.keys[j]);
+            ok &= this.map.set(this.keys[j], new String(this.values[j]));
+        }
+        this.cursor = (start + OPS)%this.present;
+        return ok;
+    }
+}
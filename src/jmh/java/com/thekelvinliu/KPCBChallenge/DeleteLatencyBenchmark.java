@@ -0,0 +1,71 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Samples the latency of individual deletes, with and without lazy deletion.
+ *
+ * The hash map holds a sliding window of half its size in keys. Each
+ * invocation deletes the oldest key of the window, and the next key is set
+ * afterwards, outside of the measured time. Comparing the p99 and p99.9 of
+ * the two shows how much of the cost of a delete is the rebalancing that
+ * lazy deletion defers to a batch purge, and how often that purge lands on
+ * a delete.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeleteLatencyBenchmark extends MapBenchmark {
+    //PARAMETERS
+    /**
+     * Whether the benchmarked hash map deletes lazily.
+     */
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    //INSTANCE VARIABLES
+    /**
+     * The benchmarked hash map.
+     */
+    private FixedSizeHashMap<Object> map;
+    /**
+     * The number of keys in the window.
+     */
+    private int present;
+    /**
+     * The index of the oldest key in the window.
+     */
+    private int cursor;
+
+    //SETUP
+    /**
+     * Fills the hash map with the first window of keys.
+     */
+    protected void prepare() {
+        int flags = this.lazy ? FixedSizeHashMap.LAZY_DELETE : 0;
+        this.map = new FixedSizeHashMap<Object>(this.size, flags);
+        this.present = this.size/2;
+        for (int i = 0; i < this.present; i++) this.map.set(this.keys[i], this.values[i]);
+        this.cursor = 0;
+    }
+    /**
+     * Slides the window forward by setting the key after its newest one.
+     */
+    @TearDown(Level.Invocation)
+    public void slide() {
+        int i = (this.cursor + this.present)%this.keys.length;
+        this.map.set(this.keys[i], this.values[i]);
+        this.cursor = (this.cursor + 1)%this.keys.length;
+    }
+
+    //BENCHMARKS
+    /**
+     * Deletes the oldest key of the window.
+     *
+     * @return      the deleted value
+     */
+    @Benchmark
+    public Object delete() {
+        return this.map.delete(this.keys[this.cursor]);
+    }
+}
@@ -0,0 +1,61 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Samples the latency of individual sets while a hash map fills up.
+ *
+ * A growable hash map starts at a sixteenth of the size and grows four times
+ * along the way; a fixed one is created at the full size. Comparing the
+ * p99.9 of the two shows the cost of growth events. Once every key has been
+ * set, a fresh hash map is created outside of the measured time.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GrowthBenchmark extends MapBenchmark {
+    //PARAMETERS
+    /**
+     * Whether the benchmarked hash map is growable.
+     */
+    @Param({"false", "true"})
+    public boolean growable;
+
+    //INSTANCE VARIABLES
+    /**
+     * The benchmarked hash map.
+     */
+    private FixedSizeHashMap<Object> map;
+    /**
+     * The index of the key set by the next invocation.
+     */
+    private int cursor;
+
+    //SETUP
+    /**
+     * Creates a fresh hash map once every key has been set.
+     */
+    @Setup(Level.Invocation)
+    public void reset() {
+        if (this.map == null || this.cursor == this.size) {
+            if (this.growable) {
+                this.map = new FixedSizeHashMap<Object>(this.size/16, FixedSizeHashMap.GROWABLE);
+            } else {
+                this.map = new FixedSizeHashMap<Object>(this.size);
+            }
+            this.cursor = 0;
+        }
+    }
+
+    //BENCHMARKS
+    /**
+     * Sets the next key.
+     *
+     * @return      whether the set succeeded
+     */
+    @Benchmark
+    public boolean set() {
+        int i = this.cursor++;
+        return this.map.set(this.keys[i], this.values[i]);
+    }
+}
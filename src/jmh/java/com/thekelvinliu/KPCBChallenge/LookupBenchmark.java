@@ -0,0 +1,60 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks get hits and misses against a half full hash map.
+ */
+public class LookupBenchmark extends MapBenchmark {
+    //INSTANCE VARIABLES
+    /**
+     * The benchmarked hash map, which is half full.
+     */
+    private FixedSizeHashMap<Object> map;
+    /**
+     * The number of keys in the hash map.
+     */
+    private int present;
+    /**
+     * The index of the first key looked up by the next invocation.
+     */
+    private int cursor;
+
+    //SETUP
+    /**
+     * Fills the hash map to half of its size.
+     */
+    protected void prepare() {
+        this.present = this.size/2;
+        this.map = this.filled(this.present);
+    }
+
+    //BENCHMARKS
+    /**
+     * Looks up keys that are in the hash map.
+     *
+     * @param       bh      consumes the returned values
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getHit(Blackhole bh) {
+        int start = this.cursor;
+        for (int i = 0; i < OPS; i++) {
+            bh.consume(this.map.get(this.keys[(start + i)%this.present]));
+        }
+        this.cursor = (start + OPS)%this.present;
+    }
+    /**
+     * Looks up keys that are not in the hash map.
+     *
+     * @param       bh      consumes the returned values
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getMiss(Blackhole bh) {
+        for (int i = 0; i < OPS; i++) {
+            bh.consume(this.map.get(this.keys[this.size + i]));
+        }
+    }
+}
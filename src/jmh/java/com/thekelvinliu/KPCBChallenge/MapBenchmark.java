@@ -0,0 +1,81 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * The shared parameters and data of the FixedSizeHashMap benchmarks.
+ *
+ * Every benchmark is parameterized by the size of the hash map and the type
+ * of value it holds. Benchmarks of single operations run OPS operations per
+ * invocation, so the reported time is per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class MapBenchmark {
+    //CONSTANTS
+    /**
+     * The number of operations run by each invocation of a benchmark.
+     */
+    public static final int OPS = 1000;
+
+    //PARAMETERS
+    /**
+     * The fixed size of the benchmarked hash map.
+     */
+    @Param({"10000", "1000000"})
+    public int size;
+    /**
+     * The type of value held by the benchmarked hash map.
+     */
+    @Param({"String", "Integer"})
+    public String valueType;
+
+    //INSTANCE VARIABLES
+    /**
+     * Keys with distinct hashes; more than the size of the hash map.
+     */
+    protected String[] keys;
+    /**
+     * Values of type valueType, one for each key.
+     */
+    protected Object[] values;
+
+    //SETUP
+    /**
+     * Generates the keys and values for this trial, then prepares it.
+     *
+     * One extra batch of keys is generated past the size of the hash map, so
+     * benchmarks always have keys that are guaranteed to be absent. JMH does
+     * not order the setup methods of a state, so this is the only trial setup
+     * and subclasses hook into it with {@link MapBenchmark#prepare}.
+     */
+    @Setup(Level.Trial)
+    public void generate() {
+        this.keys = BenchmarkData.keys(this.size + OPS);
+        this.values = BenchmarkData.values(this.size + OPS, this.valueType);
+        this.prepare();
+    }
+    /**
+     * Prepares the trial once keys and values are generated. Does nothing by
+     * default.
+     */
+    protected void prepare() {}
+
+    //UTILITIES
+    /**
+     * Returns a new hash map holding the first count keys.
+     *
+     * @param       count   the number of keys to set
+     * @return      a new hash map of this benchmark's size
+     */
+    protected FixedSizeHashMap<Object> filled(int count) {
+        FixedSizeHashMap<Object> map = new FixedSizeHashMap<Object>(this.size);
+        for (int i = 0; i < count; i++) map.set(this.keys[i], this.values[i]);
+        return map;
+    }
+}
@@ -0,0 +1,80 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmarks set and delete against a half full hash map.
+ *
+ * Each invocation sets (or deletes) a batch of keys, and the batch is undone
+ * after the invocation, outside of the measured time. That way every
+ * invocation starts from a hash map at the same load.
+ */
+public class UpdateBenchmark extends MapBenchmark {
+    //INSTANCE VARIABLES
+    /**
+     * The benchmarked hash map, which is half full between invocations.
+     */
+    private FixedSizeHashMap<Object> map;
+    /**
+     * The number of keys in the hash map between invocations.
+     */
+    private int present;
+    /**
+     * The index of the first key deleted by the next invocation of delete.
+     */
+    private int cursor;
+
+    //SETUP
+    /**
+     * Fills the hash map to half of its size.
+     */
+    protected void prepare() {
+        this.present = this.size/2;
+        this.map = this.filled(this.present);
+    }
+    /**
+     * Undoes the batch of the last invocation.
+     *
+     * Keys past present were set and are deleted again. Keys in the window
+     * starting at cursor were deleted and are set again.
+     */
+    @TearDown(Level.Invocation)
+    public void restore() {
+        for (int i = 0; i < OPS; i++) {
+            this.map.delete(this.keys[this.present + i]);
+            int j = (this.cursor + i)%this.present;
+            this.map.set(this.keys[j], this.values[j]);
+        }
+        this.cursor = (this.cursor + OPS)%this.present;
+    }
+
+    //BENCHMARKS
+    /**
+     * Sets keys that are not in the hash map.
+     *
+     * @return      whether the last set succeeded
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public boolean set() {
+        boolean ok = true;
+        for (int i = this.present; i < this.present + OPS; i++) {
+            ok &= this.map.set(this.keys[i], this.values[i]);
+        }
+        return ok;
+    }
+    /**
+     * Deletes keys that are in the hash map.
+     *
+     * @return      the last deleted value
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public Object delete() {
+        Object last = null;
+        for (int i = 0; i < OPS; i++) {
+            last = this.map.delete(this.keys[(this.cursor + i)%this.present]);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,393 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * A feed of the changes made to a hash map, held in a fixed-size ring buffer.
+ *
+ * When attached with {@link FixedSizeHashMap#setChangeFeed}, every successful
+ * set and delete publishes a {@link ChangeFeed.Record} with the next sequence
+ * number. All records are preallocated, so publishing never allocates.
+ * <p>
+ * Any number of {@link ChangeFeed.Subscriber}s can read the feed, each at its
+ * own pace, by keeping their own cursor into the ring buffer. What happens
+ * when the writer catches up to the slowest subscriber depends on the
+ * {@link ChangeFeed.Policy} of the feed. Records are published by a single
+ * writer at a time (hash maps are not thread-safe), but subscribers may poll
+ * from any thread.
+ *
+ * @param       <T>         the type of value held by the records
+ */
+public class ChangeFeed<T> {
+    //HELPER CLASSES
+    /**
+     * What the writer does when the ring buffer is full of unread records.
+     */
+    public enum Policy {
+        /**
+         * Wait until the slowest subscriber reads a record.
+         */
+        BLOCK,
+        /**
+         * Drop the new record without publishing it.
+         */
+        DROP,
+        /**
+         * Overwrite the oldest record; slow subscribers skip what they missed.
+         */
+        OVERWRITE
+    }
+
+    /**
+     * The kinds of changes that are published.
+     */
+    public enum Type {
+        SET, DELETE
+    }
+
+    /**
+     * A single change made to a hash map.
+     *
+     * Records in the ring buffer are reused. A subscriber hands out its own
+     * copy, which is only valid until the subscriber polls again.
+     *
+     * @param       <T>     the type of value held by this record
+     */
+    public static final class Record<T> {
+        /**
+         * Guards the fields of a record in the ring buffer.
+         *
+         * The writer holds the write lock while filling the record, and
+         * subscribers copy the record with an optimistic read, which is
+         * invalidated if the record is overwritten during the copy.
+         */
+        private final StampedLock lock;
+        /**
+         * The sequence number of this record.
+         */
+        private long sequence;
+        /**
+         * The kind of change.
+         */
+        private Type type;
+        /**
+         * The key that was set or deleted.
+         */
+        private String key;
+        /**
+         * The value that was set, or the value that was deleted.
+         */
+        private T value;
+
+        /**
+         * Creates an empty record.
+         */
+        private Record() {
+            this.lock = new StampedLock();
+            this.sequence = -1;
+        }
+
+        /**
+         * Returns the sequence number of this record.
+         *
+         * @return      the sequence number of this record
+         */
+        public long getSequence() {
+            return this.sequence;
+        }
+        /**
+         * Returns the kind of change.
+         *
+         * @return      the kind of change
+         */
+        public Type getType() {
+            return this.type;
+        }
+        /**
+         * Returns the key that was set or deleted.
+         *
+         * @return      the key that was set or deleted
+         */
+        public String getKey() {
+            return this.key;
+        }
+        /**
+         * Returns the value that was set, or the value that was deleted.
+         *
+         * @return      the value of this change
+         */
+        public T getValue() {
+            return this.value;
+        }
+        /**
+         * Returns a string representation of this record.
+         *
+         * @return      a string representation of this record
+         */
+        public String toString() {
+            return "(" + this.sequence + ", " + this.type + ", " + this.key + ", " + this.value + ")";
+        }
+    }
+
+    /**
+     * A reader of the feed with its own cursor.
+     *
+     * A subscriber only sees records published after it subscribed. It is
+     * meant to be polled by one thread at a time.
+     */
+    public final class Subscriber {
+        /**
+         * The sequence number of the last record read by this subscriber.
+         *
+         * The writer reads this to find the slowest subscriber.
+         */
+        private final AtomicLong sequence;
+        /**
+         * The copy of the current record that is handed out.
+         */
+        private final Record<T> current;
+        /**
+         * The number of records this subscriber missed because they were
+         * overwritten before it read them.
+         */
+        private long lost;
+
+        /**
+         * Creates a subscriber positioned at the latest published record.
+         */
+        private Subscriber() {
+            this.sequence = new AtomicLong(ChangeFeed.this.cursor.get());
+            this.current = new Record<T>();
+        }
+
+        /**
+         * Hands up to limit unread records, in order, to the given handler.
+         *
+         * The record given to the handler is a copy owned by this subscriber,
+         * and is overwritten by the next record.
+         *
+         * @param       handler     called with each record
+         * @param       limit       the maximum number of records to read
+         * @return      the number of records read
+         */
+        public int poll(Consumer<? super Record<T>> handler, int limit) {
+            Record<T>[] ring = ChangeFeed.this.ring;
+            long available = ChangeFeed.this.cursor.get();
+            long seq = this.sequence.get();
+            int read = 0;
+            while (seq < available && read < limit) {
+                long next = seq + 1;
+                //skip records that have already been overwritten
+                if (available - next >= ring.length) {
+                    long oldest = available - ring.length + 1;
+                    this.lost += oldest - next;
+                    next = oldest;
+                }
+                Record<T> record = ring[(int)next & ChangeFeed.this.mask];
+                long stamp = record.lock.tryOptimisticRead();
+                this.current.sequence = record.sequence;
+                this.current.type = record.type;
+                this.current.key = record.key;
+                this.current.value = record.value;
+                if (!record.lock.validate(stamp) || this.current.sequence != next) {
+                    //overwritten while copying, so look for the oldest again
+                    available = ChangeFeed.this.cursor.get();
+                    seq = next - 1;
+                    continue;
+                }
+                handler.accept(this.current);
+                seq = next;
+                this.sequence.lazySet(seq);
+                read++;
+            }
+            return read;
+        }
+        /**
+         * Returns the sequence number of the last record read.
+         *
+         * @return      the sequence number of the last record read
+         */
+        public long getSequence() {
+            return this.sequence.get();
+        }
+        /**
+         * Returns the number of records missed because they were overwritten.
+         *
+         * @return      the number of records missed
+         */
+        public long getLost() {
+            return this.lost;
+        }
+    }
+
+    //INSTANCE VARIABLES
+    /**
+     * The preallocated ring buffer of records.
+     */
+    private final Record<T>[] ring;
+    /**
+     * The mask that maps a sequence number to an index in the ring buffer.
+     */
+    private final int mask;
+    /**
+     * What the writer does when the ring buffer is full of unread records.
+     */
+    private final Policy policy;
+    /**
+     * The sequence number of the latest published record (-1 if none).
+     */
+    private final AtomicLong cursor;
+    /**
+     * The current subscribers, replaced as a whole when one is added.
+     */
+    private volatile Subscriber[] subscribers;
+    /**
+     * The last known sequence number of the slowest subscriber.
+     *
+     * This is only used by the writer, to avoid reading every subscriber's
+     * cursor on every publish.
+     */
+    private long gatingSequence;
+    /**
+     * The number of records dropped under the DROP policy.
+     */
+    private volatile long dropped;
+
+    //CONSTRUCTOR
+    /**
+     * Creates a feed whose ring buffer holds capacity records.
+     *
+     * @param       capacity    the number of records, a power of two
+     * @param       policy      what to do when the ring buffer is full
+     * @throws      IllegalArgumentException    if capacity is not a positive
+     *                                          power of two
+     */
+    @SuppressWarnings("unchecked")
+    public ChangeFeed(int capacity, Policy policy) {
+        if (capacity > 0 && (capacity & (capacity - 1)) == 0) {
+            this.ring = (Record<T>[]) new Record[capacity];
+            for (int i = 0; i < capacity; i++) this.ring[i] = new Record<T>();
+            this.mask = capacity - 1;
+            this.policy = policy;
+            this.cursor = new AtomicLong(-1);
+            this.subscribers = (Subscriber[]) new ChangeFeed.Subscriber[0];
+            this.gatingSequence = -1;
+            this.dropped = 0;
+        } else {
+            throw new IllegalArgumentException("Capacity must be a positive power of two.");
+        }
+    }
+
+    //METHODS
+    /**
+     * Returns a new subscriber that reads records published from now on.
+     *
+     * @return      a new subscriber
+     */
+    public synchronized Subscriber subscribe() {
+        Subscriber subscriber = new Subscriber();
+        Subscriber[] grown = Arrays.copyOf(this.subscribers, this.subscribers.length + 1);
+        grown[grown.length - 1] = subscriber;
+        this.subscribers = grown;
+        return subscriber;
+    }
+    /**
+     * Removes a subscriber, so that it no longer holds back the writer.
+     *
+     * @param       subscriber  the subscriber to remove
+     */
+    public synchronized void unsubscribe(Subscriber subscriber) {
+        Subscriber[] current = this.subscribers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscriber) {
+                Subscriber[] shrunk = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+                this.subscribers = shrunk;
+                return;
+            }
+        }
+    }
+    /**
+     * Returns the sequence number of the latest published record.
+     *
+     * @return      the latest sequence number, or -1 if nothing was published
+     */
+    public long getSequence() {
+        return this.cursor.get();
+    }
+    /**
+     * Returns the number of records dropped under the DROP policy.
+     *
+     * @return      the number of dropped records
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
+    /**
+     * Returns the policy of this feed.
+     *
+     * @return      the policy of this feed
+     */
+    public Policy getPolicy() {
+        return this.policy;
+    }
+
+    //PUBLISHING (PACKAGE-PRIVATE)
+    /**
+     * Publishes a change as the next record.
+     *
+     * Under the BLOCK policy, this waits for the slowest subscriber if the
+     * ring buffer is full. Under the DROP policy, the record is dropped
+     * instead. Under the OVERWRITE policy, this never waits.
+     *
+     * @param       type    the kind of change
+     * @param       key     the key that was set or deleted
+     * @param       value   the value that was set or deleted
+     * @return      true if published, false if dropped
+     */
+    boolean publish(Type type, String key, T value) {
+        long next = this.cursor.get() + 1;
+        if (this.policy != Policy.OVERWRITE) {
+            //the record being replaced must have been read by every subscriber
+            long wrap = next - this.ring.length;
+            if (wrap > this.gatingSequence) {
+                long slowest = this.slowest(next - 1);
+                while (wrap > slowest) {
+                    if (this.policy == Policy.DROP) {
+                        this.dropped++;
+                        return false;
+                    }
+                    LockSupport.parkNanos(1);
+                    slowest = this.slowest(next - 1);
+                }
+                this.gatingSequence = slowest;
+            }
+        }
+        Record<T> record = this.ring[(int)next & this.mask];
+        long stamp = record.lock.writeLock();
+        record.sequence = next;
+        record.type = type;
+        record.key = key;
+        record.value = value;
+        record.lock.unlockWrite(stamp);
+        this.cursor.set(next);
+        return true;
+    }
+    /**
+     * Returns the sequence number of the slowest subscriber.
+     *
+     * @param       latest  the value to return if there are no subscribers
+     * @return      the smallest sequence number of any subscriber
+     */
+    private long slowest(long latest) {
+        long min = latest;
+        for (Subscriber subscriber : this.subscribers) {
+            min = Math.min(min, subscriber.sequence.get());
+        }
+        return min;
+    }
+}
@@ -1,5 +1,11 @@
 package com.thekelvinliu.KPCBChallenge;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
 /**
  * A generic, homogeneous fixed-size hash map.
  *
@@ -14,6 +20,30 @@ package com.thekelvinliu.KPCBChallenge;
  * fields, which hold the array indices of a node's left and right children in
  * the implicit tree. This hash map uses modified implementations of standard
  * AVL Tree operations to achieve O(log n) set, get, and delete time complexity.
+ * <p>
+ * A hash map created with the {@link FixedSizeHashMap#GROWABLE} flag is not
+ * actually fixed in size. Once its load reaches a high watermark, it doubles
+ * its size, and once its load falls below a low watermark, it halves it. The
+ * node array is split into fixed-size chunks, so growing never copies nodes;
+ * chunks past the old size are only created once a set needs them. To shrink,
+ * a few nodes at the end are moved to free indices by each subsequent set or
+ * delete, and the emptied chunks are then dropped.
+ * <p>
+ * A hash map created with the {@link FixedSizeHashMap#DEDUPLICATE} flag keeps
+ * a single canonical instance of each distinct value. This saves memory when
+ * many entries hold equal values that were created separately.
+ * <p>
+ * A large hash map can be built from a stream of entries with
+ * {@link FixedSizeHashMap#build}, which sorts the keys and links a perfectly
+ * balanced tree in parallel, instead of setting entries one at a time.
+ * <p>
+ * Changes to a hash map can be followed by attaching a {@link ChangeFeed},
+ * which every successful set and delete publishes to.
+ * <p>
+ * A hash map created with the {@link FixedSizeHashMap#LAZY_DELETE} flag does
+ * not restructure its tree on delete. Instead, the deleted node is left in
+ * place as a tombstone, and tombstones are removed in a batch once they take
+ * up a given fraction of the hash map.
  *
  * @param       <T>         the type of value that this hash map will hold
  * @see         com.thekelvinliu.KPCBChallenge.FixedSizeHashMap.Node
@@ -87,23 +117,69 @@ public class FixedSizeHashMap<T> {
         }
     }
 
+    //CONSTANTS
+    /**
+     * Flag for a hash map that grows and shrinks with its number of items.
+     */
+    public static final int GROWABLE = 1;
+    /**
+     * Flag for a hash map that stores one instance of each distinct value.
+     */
+    public static final int DEDUPLICATE = 2;
+    /**
+     * Flag for a hash map that leaves tombstones on delete, purged in batches.
+     */
+    public static final int LAZY_DELETE = 4;
+    /**
+     * The default fraction of the size that tombstones may take up.
+     */
+    public static final float DEFAULT_PURGE_THRESHOLD = 0.1f;
+    /**
+     * The load at which a growable hash map doubles its size.
+     */
+    private static final float GROW_LOAD = 0.75f;
+    /**
+     * The load below which a growable hash map halves its size.
+     */
+    private static final float SHRINK_LOAD = 0.25f;
+    /**
+     * The number of indices evacuated by each set or delete while shrinking.
+     */
+    private static final int EVACUATION_STEP = 8;
+    /**
+     * The base 2 logarithm of the number of nodes in a chunk.
+     */
+    private static final int CHUNK_BITS = 10;
+    /**
+     * The number of nodes in a chunk of the node array.
+     */
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    /**
+     * The number of nodes below which a bulk build links a subtree directly.
+     */
+    private static final int BUILD_THRESHOLD = 1 << 13;
+
     //INSTANCE VARIABLES
     /**
-     * The array that holds all of this hash map's nodes.
+     * The chunks of the array that holds all of this hash map's nodes.
      *
-     * The nodes in this array may be active or inactive in the this hash map's
-     * implicit tree. An active node must have a non null value and nonnegative
-     * height field.
+     * The node at index i is held by chunk i/CHUNK, and should be accessed
+     * with {@link FixedSizeHashMap#node}. The nodes may be active or inactive
+     * in the this hash map's implicit tree. An active node must have a non
+     * null value and nonnegative height field, unless it is a tombstone, whose
+     * value is null. Chunks and nodes that a growable hash map has not used
+     * yet are null, and the last chunk it was created with may be short.
      */
-    private Node[] tree;
+    private Node[][] chunks;
     /**
      * The bitmap used to mark which nodes in the array are active.
      *
-     * This bitmap is accomplished with a byte array. Because of this, up to 7
-     * extra bits might be unused, as they point to indices outside the bounds
-     * of the node array.
+     * This bitmap is accomplished with a byte array for each chunk. Because of
+     * this, up to 7 extra bits might be unused, as they point to indices
+     * outside the bounds of the node array. The bitmap of a chunk that has not
+     * been created yet is null, and none of its nodes are active.
      */
-    private byte[] bitmap;
+    private byte[][] bitmaps;
     /**
      * The array index of this hash map's implicit root.
      */
@@ -115,39 +191,240 @@ public class FixedSizeHashMap<T> {
      */
     private int delInd;
     /**
-     * The fixed size of this hash map.
+     * The current size of this hash map.
+     *
+     * This only changes if this hash map is growable.
+     */
+    private int size;
+    /**
+     * The size this hash map was created with, which it never shrinks below.
+     */
+    private final int minSize;
+    /**
+     * The size this hash map is shrinking to, or -1 if it is not shrinking.
+     */
+    private int shrinkSize;
+    /**
+     * The index of the next node to be evacuated while shrinking.
+     *
+     * Nodes at or past shrinkSize are moved to free indices below it, from
+     * the highest index down.
+     */
+    private int evacInd;
+    /**
+     * The flags this hash map was created with.
+     */
+    private final int flags;
+    /**
+     * The dictionary of canonical values, or null if not deduplicating.
      */
-    private final int size;
+    private final ValueDictionary<T> dictionary;
+    /**
+     * The feed that changes are published to, or null if none is attached.
+     */
+    private ChangeFeed<T> feed;
     /**
      * The number of items currently in this hash map.
+     *
+     * Tombstones are not counted as items.
      */
     private int items;
+    /**
+     * The number of tombstones in the implicit tree.
+     */
+    private int tombstones;
+    /**
+     * The keys of nodes that were made tombstones since the last purge.
+     *
+     * A key may be listed more than once, or belong to a node that has since
+     * been set again, so each one is checked before it is purged. Keys that
+     * are deleted and set again over and over would grow this without bound,
+     * so a purge also happens once it holds twice as many keys as tombstones
+     * may take up.
+     */
+    private int[] tombKeys;
+    /**
+     * The number of keys in tombKeys.
+     */
+    private int tombCount;
+    /**
+     * The fraction of the size that tombstones may take up before a purge.
+     */
+    private final float purgeThreshold;
 
     //CONSTRUCTOR
     /**
      * Creates an instance of a fixed-size hash map.
      *
+     * @param       size    the fixed-size of this hash map
+     * @throws      IllegalArgumentException    if size is zero or negative
+     * @see         FixedSizeHashMap#FixedSizeHashMap(int, int)
+     */
+    public FixedSizeHashMap(int size) {
+        this(size, 0);
+    }
+    /**
+     * Creates an instance of a hash map with the given flags.
+     *
      * At this time, all nodes are created and put into the array. Because there
      * are not yet any entries in the hash map, the root index is set to -1,
-     * and the number of items is set to 0.
+     * and the number of items is set to 0. If flags include
+     * {@link FixedSizeHashMap#GROWABLE}, size is only the initial (and
+     * minimum) size of this hash map. If flags include
+     * {@link FixedSizeHashMap#DEDUPLICATE}, values are compared with
+     * {@link java.lang.Object#equals}, and get returns the first instance of
+     * each distinct value that was set.
      *
-     * @param       size    the fixed-size of this hash map
+     * @param       size    the (initial) size of this hash map
+     * @param       flags   a bitwise or of flags, or 0 for none
      * @throws      IllegalArgumentException    if size is zero or negative
      */
-    public FixedSizeHashMap(int size) {
+    public FixedSizeHashMap(int size, int flags) {
+        this(size, flags, DEFAULT_PURGE_THRESHOLD);
+    }
+    /**
+     * Creates an instance of a hash map with the given flags and threshold.
+     *
+     * The threshold only matters if flags include
+     * {@link FixedSizeHashMap#LAZY_DELETE}. Once the number of tombstones
+     * reaches purgeThreshold times the size of this hash map, all of them are
+     * removed from the tree at once.
+     *
+     * @param       size            the (initial) size of this hash map
+     * @param       flags           a bitwise or of flags, or 0 for none
+     * @param       purgeThreshold  the fraction of the size that tombstones
+     *                              may take up, greater than 0 and at most 1
+     * @throws      IllegalArgumentException    if size is zero or negative,
+     *                                          or if purgeThreshold is invalid
+     */
+    public FixedSizeHashMap(int size, int flags, float purgeThreshold) {
+        this(size, flags, purgeThreshold, true);
+    }
+    /**
+     * Creates an instance of a hash map, optionally without creating nodes.
+     *
+     * If allocate is false, the caller must fill the chunks itself, as
+     * {@link FixedSizeHashMap#build} does in parallel. The last chunk only
+     * has room for size nodes, until a growable hash map grows past it.
+     *
+     * @param       size            the (initial) size of this hash map
+     * @param       flags           a bitwise or of flags, or 0 for none
+     * @param       purgeThreshold  the fraction of the size that tombstones
+     *                              may take up
+     * @param       allocate        whether to create every node
+     * @throws      IllegalArgumentException    if size is zero or negative,
+     *                                          or if purgeThreshold is invalid
+     */
+    private FixedSizeHashMap(int size, int flags, float purgeThreshold, boolean allocate) {
+        if (!(purgeThreshold > 0 && purgeThreshold <= 1)) {
+            throw new IllegalArgumentException("Purge threshold must be in (0, 1].");
+        }
         if (size > 0) {
-            this.tree = new Node[size];
-            for (int i = 0; i < size; i++) this.tree[i] = new Node();
-            this.bitmap = new byte[size/8 + 1];
+            this.flags = flags;
+            this.chunks = new Node[chunkCount(size)][];
+            this.bitmaps = new byte[this.chunks.length][];
+            for (int c = 0; c < this.chunks.length; c++) {
+                int length = Math.min(CHUNK, size - c*CHUNK);
+                this.chunks[c] = new Node[length];
+                this.bitmaps[c] = new byte[(length + 7)/8];
+                if (allocate) {
+                    for (int i = 0; i < length; i++) this.chunks[c][i] = new Node();
+                }
+            }
             this.rootInd = -1;
             this.delInd = -1;
             this.size = size;
+            this.minSize = size;
+            this.shrinkSize = -1;
+            this.dictionary = ((flags & DEDUPLICATE) != 0) ? new ValueDictionary<T>() : null;
             this.items = 0;
+            this.tombstones = 0;
+            this.tombKeys = new int[0];
+            this.tombCount = 0;
+            this.purgeThreshold = purgeThreshold;
         } else {
             throw new IllegalArgumentException("Size must be a positive integer.");
         }
     }
 
+    //BULK CONSTRUCTION (PUBLIC)
+    /**
+     * Builds a fixed-size hash map from a stream of entries.
+     *
+     * @param       <T>         the type of value that the hash map will hold
+     * @param       entries     the entries to put in the hash map
+     * @param       size        the fixed-size of the hash map
+     * @return      a hash map holding the given entries
+     * @throws      IllegalArgumentException    if size is zero or negative, or
+     *                                          if there are more distinct keys
+     *                                          than size
+     * @see         FixedSizeHashMap#build(Stream, int, int)
+     */
+    public static <T> FixedSizeHashMap<T> build(Stream<Map.Entry<String, T>> entries, int size) {
+        return build(entries, size, 0);
+    }
+    /**
+     * Builds a hash map with the given flags from a stream of entries.
+     *
+     * The result is the same as setting every entry, in encounter order, on
+     * a new hash map: entries with null values are skipped, and only the first
+     * entry with a given key is kept. Instead of inserting one entry at a
+     * time, the hashes of the keys are computed and sorted in parallel, and
+     * the sorted entries are linked into a perfectly balanced implicit tree by
+     * a fork/join task. The tree is laid out in order in the first indices of
+     * the node array, so the bitmap is filled without scanning.
+     * <p>
+     * Values are interned sequentially if flags include DEDUPLICATE.
+     *
+     * @param       <T>         the type of value that the hash map will hold
+     * @param       entries     the entries to put in the hash map
+     * @param       size        the (initial) size of the hash map
+     * @param       flags       a bitwise or of flags, or 0 for none
+     * @return      a hash map holding the given entries
+     * @throws      IllegalArgumentException    if size is zero or negative, or
+     *                                          if there are more distinct keys
+     *                                          than size
+     */
+    public static <T> FixedSizeHashMap<T> build(Stream<Map.Entry<String, T>> entries,
+                                                int size, int flags) {
+        final FixedSizeHashMap<T> map = new FixedSizeHashMap<T>(size, flags,
+                                                                DEFAULT_PURGE_THRESHOLD, false);
+        final Map.Entry[] array = entries.toArray(Map.Entry[]::new);
+        //fingerprint each entry as its hash (high bits) and position (low bits)
+        //so that sorting keeps entries with equal keys in encounter order
+        long[] prints = new long[array.length];
+        Arrays.parallelSetAll(prints, i -> (array[i].getValue() != null)
+            ? ((long)array[i].getKey().hashCode() << 32) | i
+            : Long.MAX_VALUE);
+        Arrays.parallelSort(prints);
+        //keep only the first entry of each run of equal hashes
+        int unique = 0;
+        for (int i = 0; i < prints.length && prints[i] != Long.MAX_VALUE; i++) {
+            if (unique == 0 || (int)(prints[i] >> 32) != (int)(prints[unique - 1] >> 32)) {
+                prints[unique++] = prints[i];
+            }
+        }
+        if (unique > size) {
+            throw new IllegalArgumentException("More distinct keys than size.");
+        }
+        Arrays.stream(map.chunks).parallel()
+            .forEach(chunk -> Arrays.setAll(chunk, i -> map.new Node<T>()));
+        if (unique > 0) {
+            map.rootInd = (unique - 1) >>> 1;
+            ForkJoinPool.commonPool().invoke(map.new SubtreeBuild(prints, array, 0, unique - 1));
+        }
+        //the first unique nodes are active
+        for (int c = 0; c < unique/CHUNK; c++) Arrays.fill(map.bitmaps[c], (byte)-1);
+        for (int i = unique - unique%CHUNK; i < unique; i++) map.bitFlip(i);
+        map.items = unique;
+        if (map.dictionary != null) {
+            for (int i = 0; i < unique; i++) {
+                map.node(i).value = map.dictionary.intern((T) map.node(i).value);
+            }
+        }
+        return map;
+    }
+
     //USER METHODS, PRESCRIBED BY KPCB (PUBLIC)
     /**
      * Associates given key to a given value in this hash map.
@@ -157,22 +434,101 @@ public class FixedSizeHashMap<T> {
      * (1) there must be at least one inactive node in this hash map,<p>
      * (2) the given value must not be null,<p>
      * (3) the given key must not already be associated with a value.
+     * <p>
+     * A growable hash map grows instead of failing constraint (1). If key
+     * belongs to a tombstone, the tombstone's node is reused.
      *
      * @param       key     the key to be associated
      * @param       value   the value to be associated
      * @return      a boolean indicating success (true) or failure (false)
      */
     public boolean set(String key, T value) {
-        if (this.items < this.size && value != null) {
+        return this.set(key.hashCode(), key, value);
+    }
+    /**
+     * Returns the value associated with a given key.
+     *
+     * This will fail and return null if there are no entries in this hash map,
+     * or if the key is not found.
+     *
+     * @param       key     the key associated with the returned value
+     * @return      the value associated with key (or null)
+     */
+    public T get(String key) {
+        return this.get(key.hashCode());
+    }
+    /**
+     * Deletes the entry with the given key from this hash map.
+     *
+     * Also returns the keys associated value. This operation can fail if there
+     * are no active nodes in the implicit tree, or if the given key is not
+     * associated with any values in this hash map. If this happens, null is
+     * returned.
+     *
+     * @param       key     the key of the entry to be deleted
+     * @param       key     the key paired with the returned value
+     * @return      the value associated with key or null
+     */
+    public T delete(String key) {
+        return this.delete(key.hashCode(), key);
+    }
+
+    /**
+     * Returns the load (ratio of items to size) of this fixed-size hash map.
+     *
+     * For a growable hash map, this is relative to its current size.
+     * Tombstones are not counted as items.
+     *
+     * @return      the load of this fixed-size hash map
+     */
+    public float load() {
+        return (float)this.items/this.size;
+    }
+
+    //HASHED KEY METHODS (PACKAGE-PRIVATE)
+    /**
+     * Associates the key with the given hash to a given value.
+     *
+     * This is {@link FixedSizeHashMap#set(String, Object)} for callers that
+     * already know the hash of the key, and may not have the key itself as a
+     * String. The key is only handed to the change feed, so it may be null,
+     * in which case the published record has a null key.
+     *
+     * @param       hash    the hash of the key, as given by String.hashCode
+     * @param       key     the key to be associated (or null)
+     * @param       value   the value to be associated
+     * @return      a boolean indicating success (true) or failure (false)
+     */
+    boolean set(int hash, String key, T value) {
+        if (this.isGrowable()) {
+            this.step();
+            this.makeRoom();
+        }
+        if (this.tombstones > 0) {
+            int nodeInd = this.find(hash, this.rootInd);
+            if (nodeInd != -1) {
+                return this.revive(nodeInd, key, value);
+            } else if (this.items + this.tombstones == this.size) {
+                this.purge();
+            }
+        }
+        if (this.items + this.tombstones < this.size && value != null) {
             int newInd = this.getAvailableNode();
-            this.tree[newInd].key = key.hashCode();
-            this.tree[newInd].value = value;
-            this.tree[newInd].height = 0;
+            this.claim(newInd);
+            this.node(newInd).key = hash;
+            this.node(newInd).value = value;
+            this.node(newInd).height = 0;
             try {
                 //throws an IllegalArgumentException if the key is already used
                 this.rootInd = this.insert(newInd, this.rootInd);
+                if (this.dictionary != null) {
+                    this.node(newInd).value = this.dictionary.intern(value);
+                }
                 this.bitFlip(newInd);
                 this.items++;
+                if (this.feed != null) {
+                    this.feed.publish(ChangeFeed.Type.SET, key, (T) this.node(newInd).value);
+                }
                 return true;
             } catch (ArrayIndexOutOfBoundsException e) {
                 e.printStackTrace();
@@ -180,7 +536,7 @@ public class FixedSizeHashMap<T> {
                 return false;
             } catch (IllegalArgumentException e) {
                 //clean up and return false
-                this.tree[newInd].clean();
+                this.node(newInd).clean();
                 return false;
             }
         } else {
@@ -188,48 +544,53 @@ public class FixedSizeHashMap<T> {
         }
     }
     /**
-     * Returns the value associated with a given key.
-     *
-     * This will fail and return null if there are no entries in this hash map,
-     * or if the key is not found.
+     * Returns the value associated with the key with the given hash.
      *
-     * @param       key     the key associated with the returned value
-     * @return      the value associated with key (or null)
+     * @param       hash    the hash of the key, as given by String.hashCode
+     * @return      the value associated with the key (or null)
      */
-    public T get(String key) {
+    T get(int hash) {
         if (this.items > 0 && this.rootInd != -1) {
-            //get the index of the node with the given string
-            int nodeInd = this.find(key.hashCode(), this.rootInd);
-            return (nodeInd != -1) ? (T) this.tree[nodeInd].value : null;
+            //get the index of the node with the given hash
+            int nodeInd = this.find(hash, this.rootInd);
+            return (nodeInd != -1) ? (T) this.node(nodeInd).value : null;
         } else {
             return null;
         }
     }
     /**
-     * Deletes the entry with the given key from this hash map.
+     * Deletes the entry whose key has the given hash from this hash map.
      *
-     * Also returns the keys associated value. This operation can fail if there
-     * are no active nodes in the implicit tree, or if the given key is not
-     * associated with any values in this hash map. If this happens, null is
-     * returned.
+     * As with {@link FixedSizeHashMap#set(int, String, Object)}, the key is
+     * only handed to the change feed, and may be null.
      *
-     * @param       key     the key of the entry to be deleted
-     * @param       key     the key paired with the returned value
-     * @return      the value associated with key or null
+     * @param       hash    the hash of the key, as given by String.hashCode
+     * @param       key     the key of the entry to be deleted (or null)
+     * @return      the value associated with the key or null
      */
-    public T delete(String key) {
-        if (this.items > 0 && this.rootInd != -1) {
-            //attempt to remove the node with key from the implicit tree
-            this.rootInd = this.remove(key.hashCode(), this.rootInd);
+    T delete(int hash, String key) {
+        if (this.items > 0 && this.rootInd != -1 && (this.flags & LAZY_DELETE) != 0) {
+            return this.bury(hash, key);
+        } else if (this.items > 0 && this.rootInd != -1) {
+            //attempt to remove the node with hash from the implicit tree
+            this.rootInd = this.remove(hash, this.rootInd);
             //this.delInd will hold the index of the node that should be delted
             if (this.delInd != -1) {
                 //save the return value
-                T retval = (T) this.tree[delInd].value;
+                T retval = (T) this.node(delInd).value;
+                if (this.dictionary != null) this.dictionary.release(retval);
                 //clean the deleted node and mark as inactive
-                this.tree[this.delInd].clean();
+                this.node(this.delInd).clean();
                 this.bitFlip(this.delInd);
                 this.delInd = -1;
                 this.items--;
+                if (this.feed != null) {
+                    this.feed.publish(ChangeFeed.Type.DELETE, key, retval);
+                }
+                if (this.isGrowable()) {
+                    this.step();
+                    this.startShrink();
+                }
                 return retval;
             } else {
                 return null;
@@ -239,24 +600,127 @@ public class FixedSizeHashMap<T> {
         }
     }
 
-    /**
-     * Returns the load (ratio of items to size) of this fixed-size hash map.
-     *
-     * @return      the load of this fixed-size hash map
-     */
-    public float load() {
-        return (float)this.items/this.size;
-    }
-
     //EXTRAS (PUBLIC)
     /**
      * Returns the maximum number of items that this hash map can hold.
      *
+     * For a growable hash map, this is its current size, which changes as
+     * items are set and deleted.
+     *
      * @return      the maximum number of items that this hash map can hold
      */
     public int getSize() {
         return this.size;
     }
+    /**
+     * Attaches a feed that every successful set and delete publishes to.
+     *
+     * Only changes made after the feed is attached are published. Under the
+     * BLOCK policy, set and delete wait for the slowest subscriber of the
+     * feed whenever its ring buffer is full.
+     *
+     * @param       feed    the feed to attach, or null to detach the current one
+     */
+    public void setChangeFeed(ChangeFeed<T> feed) {
+        this.feed = feed;
+    }
+    /**
+     * Returns the attached change feed.
+     *
+     * @return      the attached change feed, or null if none is attached
+     */
+    public ChangeFeed<T> getChangeFeed() {
+        return this.feed;
+    }
+
+    //BULK CONSTRUCTION UTILITIES (PRIVATE)
+    /**
+     * A fork/join task that links the nodes of a balanced implicit subtree.
+     *
+     * The subtree holds the sorted entries from index lo to index hi, which
+     * are also the indices of their nodes. The middle entry becomes the
+     * subtree root, and the halves on either side become its left and right
+     * subtrees, so the balance factor of every node is -1, 0, or 1. Halves
+     * larger than BUILD_THRESHOLD are linked in parallel.
+     */
+    private final class SubtreeBuild extends RecursiveAction {
+        /**
+         * The sorted fingerprints of the entries (hash, then stream position).
+         */
+        private final long[] prints;
+        /**
+         * The entries, in stream order.
+         */
+        private final Map.Entry[] entries;
+        /**
+         * The index of the first node of the subtree.
+         */
+        private final int lo;
+        /**
+         * The index of the last node of the subtree.
+         */
+        private final int hi;
+
+        /**
+         * Creates a task that links the nodes from lo to hi.
+         *
+         * @param       prints      the sorted fingerprints of the entries
+         * @param       entries     the entries, in stream order
+         * @param       lo          the index of the first node of the subtree
+         * @param       hi          the index of the last node of the subtree
+         */
+        private SubtreeBuild(long[] prints, Map.Entry[] entries, int lo, int hi) {
+            this.prints = prints;
+            this.entries = entries;
+            this.lo = lo;
+            this.hi = hi;
+        }
+        /**
+         * Links the subtree, forking if it is large.
+         */
+        protected void compute() {
+            if (this.hi - this.lo < BUILD_THRESHOLD) {
+                this.link(this.lo, this.hi);
+            } else {
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(new SubtreeBuild(this.prints, this.entries, this.lo, mid - 1),
+                          new SubtreeBuild(this.prints, this.entries, mid + 1, this.hi));
+                this.fill(mid, (this.lo + mid - 1) >>> 1, (mid + 1 + this.hi) >>> 1);
+            }
+        }
+        /**
+         * Recursively links the nodes from lo to hi, and returns the root.
+         *
+         * @param       lo      the index of the first node of the subtree
+         * @param       hi      the index of the last node of the subtree
+         * @return      the index of the subtree root, or -1 if it is empty
+         */
+        private int link(int lo, int hi) {
+            if (lo > hi) return -1;
+            int mid = (lo + hi) >>> 1;
+            this.fill(mid, this.link(lo, mid - 1), this.link(mid + 1, hi));
+            return mid;
+        }
+        /**
+         * Fills the node at index i with its entry and children.
+         *
+         * The children must already be linked, since the height of the node
+         * is computed from theirs.
+         *
+         * @param       i       the index of the node
+         * @param       lInd    the index of the left child, or -1
+         * @param       rInd    the index of the right child, or -1
+         */
+        private void fill(int i, int lInd, int rInd) {
+            Node node = FixedSizeHashMap.this.node(i);
+            node.key = (int)(this.prints[i] >> 32);
+            node.value = this.entries[(int)this.prints[i]].getValue();
+            node.left = lInd;
+            node.right = rInd;
+            node.height = FixedSizeHashMap.this.max(FixedSizeHashMap.this.height(lInd),
+                                                    FixedSizeHashMap.this.height(rInd)) + 1;
+        }
+    }
 
     //TREE UTILITIES (PRIVATE)
     /**
@@ -279,12 +743,12 @@ public class FixedSizeHashMap<T> {
             return newInd;
         }
         //insert into left subtree
-        else if (this.tree[newInd].key < this.tree[startInd].key) {
-            this.tree[startInd].left = this.insert(newInd, this.tree[startInd].left);
+        else if (this.node(newInd).key < this.node(startInd).key) {
+            this.node(startInd).left = this.insert(newInd, this.node(startInd).left);
         }
         //insert into right subtree
-        else if (this.tree[newInd].key > this.tree[startInd].key) {
-            this.tree[startInd].right = this.insert(newInd, this.tree[startInd].right);
+        else if (this.node(newInd).key > this.node(startInd).key) {
+            this.node(startInd).right = this.insert(newInd, this.node(startInd).right);
         }
         //duplicate key
         else {
@@ -307,12 +771,12 @@ public class FixedSizeHashMap<T> {
     private int find(int key, int startInd) {
         if (startInd == -1) {
             return -1;
-        } else if (key == this.tree[startInd].key) {
+        } else if (key == this.node(startInd).key) {
             return startInd;
-        } else if (key < this.tree[startInd].key) {
-            return this.find(key, this.tree[startInd].left);
+        } else if (key < this.node(startInd).key) {
+            return this.find(key, this.node(startInd).left);
         } else {
-            return this.find(key, this.tree[startInd].right);
+            return this.find(key, this.node(startInd).right);
         }
     }
     /**
@@ -334,19 +798,19 @@ public class FixedSizeHashMap<T> {
             return -1;
         }
         //remove from left subtree
-        else if (key < this.tree[startInd].key) {
-            this.tree[startInd].left = this.remove(key, this.tree[startInd].left);
+        else if (key < this.node(startInd).key) {
+            this.node(startInd).left = this.remove(key, this.node(startInd).left);
             return this.rebalance(startInd);
         }
         //remove from right subtree
-        else if (key > this.tree[startInd].key) {
-            this.tree[startInd].right = this.remove(key, this.tree[startInd].right);
+        else if (key > this.node(startInd).key) {
+            this.node(startInd).right = this.remove(key, this.node(startInd).right);
             return this.rebalance(startInd);
         }
         //startInd is the node to be removed
         else {
-            int lInd = this.tree[startInd].left;
-            int rInd = this.tree[startInd].right;
+            int lInd = this.node(startInd).left;
+            int rInd = this.node(startInd).right;
             this.delInd = startInd;
             //node is a leaf, simply remove it
             if (lInd == -1 && rInd == -1) {
@@ -364,7 +828,7 @@ public class FixedSizeHashMap<T> {
                 int smallestInd = this.getSmallest(rInd);
                 int tempInd = startInd;
                 this.nodeKVSwap(startInd, smallestInd);
-                this.tree[startInd].right = this.remove(this.tree[smallestInd].key, rInd);
+                this.node(startInd).right = this.remove(this.node(smallestInd).key, rInd);
                 this.delInd = smallestInd;
                 return this.rebalance(startInd);
             }
@@ -384,19 +848,21 @@ public class FixedSizeHashMap<T> {
     private int rebalance(int startInd) {
         if (startInd == -1) System.out.println("shit");
         int newStartInd;
-        int lInd = this.tree[startInd].left;
-        int rInd = this.tree[startInd].right;
+        int lInd = this.node(startInd).left;
+        int rInd = this.node(startInd).right;
         //left subtree heavy
         if (this.balanceFactor(startInd) == 2) {
-            if (this.tree[lInd].left == -1) {
-                newStartInd = this.rotateCaseLL(startInd);
-            } else {
+            //the left child leaning right means the left right case
+            if (this.balanceFactor(lInd) < 0) {
                 newStartInd = this.rotatecaseLR(startInd);
+            } else {
+                newStartInd = this.rotateCaseLL(startInd);
             }
         }
         //right subtree heavy
         else if (this.balanceFactor(startInd) == -2) {
-            if (this.tree[rInd].right == -1) {
+            //the right child leaning left means the right left case
+            if (this.balanceFactor(rInd) > 0) {
                 newStartInd = this.rotateCaseRL(startInd);
             } else {
                 newStartInd = this.rotateCaseRR(startInd);
@@ -417,8 +883,8 @@ public class FixedSizeHashMap<T> {
      * @return      the index of the node with the smallest key
      */
     private int getSmallest(int startInd) {
-        if (this.tree[startInd].left != -1) {
-            return this.getSmallest(this.tree[startInd].left);
+        if (this.node(startInd).left != -1) {
+            return this.getSmallest(this.node(startInd).left);
         } else {
             return startInd;
         }
@@ -432,12 +898,12 @@ public class FixedSizeHashMap<T> {
      * @param       b       the index of the node with the data to write (src)
      */
     private void nodeKVSwap(int a, int b) {
-        int tempKey = this.tree[a].key;
-        this.tree[a].key = this.tree[b].key;
-        this.tree[b].key = tempKey;
-        T tempValue = (T) this.tree[a].value;
-        this.tree[a].value = this.tree[b].value;
-        this.tree[b].value = tempValue;
+        int tempKey = this.node(a).key;
+        this.node(a).key = this.node(b).key;
+        this.node(b).key = tempKey;
+        T tempValue = (T) this.node(a).value;
+        this.node(a).value = this.node(b).value;
+        this.node(b).value = tempValue;
     }
     /**
      * Returns the balance factor of the subtree rooted by the node at index i.
@@ -449,7 +915,7 @@ public class FixedSizeHashMap<T> {
      * @return      the balance factor of the specified node
      */
     private int balanceFactor(int i) {
-        return this.height(this.tree[i].left) - this.height(this.tree[i].right);
+        return this.height(this.node(i).left) - this.height(this.node(i).right);
     }
     /**
      * Returns the height of the node at index i or -1 if i is not active.
@@ -458,7 +924,7 @@ public class FixedSizeHashMap<T> {
      * @return      the height of the node at index i or -1
      */
     private int height(int i) {
-        return (i != -1) ? this.tree[i].height : -1;
+        return (i != -1) ? this.node(i).height : -1;
     }
     /**
      * Updates the height of the node at index i
@@ -467,16 +933,16 @@ public class FixedSizeHashMap<T> {
      */
     private void updateHeight(int i) {
         if (i != -1) {
-            int lInd = this.tree[i].left;
-            int rInd = this.tree[i].right;
+            int lInd = this.node(i).left;
+            int rInd = this.node(i).right;
             if (lInd == -1 && rInd == -1)
-                this.tree[i].height = 0;
+                this.node(i).height = 0;
             else if (lInd != -1 && rInd == -1)
-                this.tree[i].height = this.tree[lInd].height + 1;
+                this.node(i).height = this.node(lInd).height + 1;
             else if (lInd == -1 && rInd != -1)
-                this.tree[i].height = this.tree[rInd].height + 1;
+                this.node(i).height = this.node(rInd).height + 1;
             else
-                this.tree[i].height = this.max(this.height(lInd), this.height(rInd)) + 1;
+                this.node(i).height = this.max(this.height(lInd), this.height(rInd)) + 1;
         }
     }
 
@@ -491,12 +957,12 @@ public class FixedSizeHashMap<T> {
      * @return      the new start index after rotation
      */
     private int rotateCaseLL(int startInd) {
-        int newStartInd = this.tree[startInd].left;
+        int newStartInd = this.node(startInd).left;
         if (newStartInd == -1) {
             return startInd;
         } else {
-            this.tree[startInd].left = this.tree[newStartInd].right;
-            this.tree[newStartInd].right = startInd;
+            this.node(startInd).left = this.node(newStartInd).right;
+            this.node(newStartInd).right = startInd;
             //update heights
             this.updateHeight(startInd);
             this.updateHeight(newStartInd);
@@ -513,12 +979,12 @@ public class FixedSizeHashMap<T> {
      * @return      the new start index after rotation
      */
     private int rotateCaseRR(int startInd) {
-        int newStartInd = this.tree[startInd].right;
+        int newStartInd = this.node(startInd).right;
         if (newStartInd == -1) {
             return startInd;
         } else {
-            this.tree[startInd].right = this.tree[newStartInd].left;
-            this.tree[newStartInd].left = startInd;
+            this.node(startInd).right = this.node(newStartInd).left;
+            this.node(newStartInd).left = startInd;
             //update heights
             this.updateHeight(startInd);
             this.updateHeight(newStartInd);
@@ -535,7 +1001,7 @@ public class FixedSizeHashMap<T> {
      * @return      the new start index after rotation
      */
     private int rotatecaseLR(int startInd) {
-        this.tree[startInd].left = this.rotateCaseRR(this.tree[startInd].left);
+        this.node(startInd).left = this.rotateCaseRR(this.node(startInd).left);
         return this.rotateCaseLL(startInd);
     }
     /**
@@ -548,42 +1014,326 @@ public class FixedSizeHashMap<T> {
      * @return      the new start index after rotation
      */
     private int rotateCaseRL(int startInd) {
-        this.tree[startInd].right = this.rotateCaseLL(this.tree[startInd].right);
+        this.node(startInd).right = this.rotateCaseLL(this.node(startInd).right);
         return this.rotateCaseRR(startInd);
     }
 
+    //GROWTH UTILITIES (PRIVATE)
+    /**
+     * Returns the node at index i.
+     *
+     * @param       i       the index of a node
+     * @return      the node at index i (null if it has never been used)
+     */
+    private Node node(int i) {
+        return this.chunks[i >>> CHUNK_BITS][i & (CHUNK - 1)];
+    }
+    /**
+     * Creates the node at index i, and its chunk, if they have never been used.
+     *
+     * Only indices added by growing may be unused, so the chunks and nodes of
+     * a grown hash map are allocated as they are needed rather than all at
+     * once. A short chunk is lengthened to CHUNK nodes, which copies at most
+     * CHUNK references.
+     *
+     * @param       i       the index of a node
+     */
+    private void claim(int i) {
+        int c = i >>> CHUNK_BITS;
+        if (this.chunks[c] == null) {
+            this.chunks[c] = new Node[CHUNK];
+            this.bitmaps[c] = new byte[CHUNK/8];
+        } else if ((i & (CHUNK - 1)) >= this.chunks[c].length) {
+            //the last chunk this hash map was created with only fit its size
+            this.chunks[c] = Arrays.copyOf(this.chunks[c], CHUNK);
+            this.bitmaps[c] = Arrays.copyOf(this.bitmaps[c], CHUNK/8);
+        }
+        if (this.chunks[c][i & (CHUNK - 1)] == null) {
+            this.chunks[c][i & (CHUNK - 1)] = new Node();
+        }
+    }
+    /**
+     * Returns whether this hash map was created with the GROWABLE flag.
+     *
+     * @return      true if this hash map is growable
+     */
+    private boolean isGrowable() {
+        return (this.flags & GROWABLE) != 0;
+    }
+    /**
+     * Does a bounded amount of pending evacuation work.
+     */
+    private void step() {
+        if (this.shrinkSize != -1) {
+            this.evacuate(EVACUATION_STEP);
+        }
+    }
+    /**
+     * Makes sure that there is room for one more item, growing if needed.
+     *
+     * Tombstones count towards the load here, since they occupy nodes.
+     * A pending shrink is abandoned if the new item would bring the load of
+     * the smaller size up to the high watermark.
+     */
+    private void makeRoom() {
+        int occupied = this.items + this.tombstones;
+        if (this.shrinkSize != -1 && occupied + 1 >= this.shrinkSize*GROW_LOAD) {
+            this.shrinkSize = -1;
+        }
+        if (occupied + 1 > this.size*GROW_LOAD) {
+            this.grow();
+        }
+    }
+    /**
+     * Doubles the size of this hash map.
+     *
+     * No nodes are copied or created here. Only the directories of chunks are
+     * lengthened, if needed, which copies one reference for every CHUNK nodes.
+     * The new chunks are created by {@link FixedSizeHashMap#claim}.
+     */
+    private void grow() {
+        int newSize = (this.size <= Integer.MAX_VALUE/2) ? this.size*2 : Integer.MAX_VALUE - 8;
+        if (newSize > this.size) {
+            int count = chunkCount(newSize);
+            if (count > this.chunks.length) {
+                this.chunks = Arrays.copyOf(this.chunks, count);
+                this.bitmaps = Arrays.copyOf(this.bitmaps, count);
+            }
+            this.size = newSize;
+        }
+    }
+    /**
+     * Begins shrinking if the load of this hash map is below the low watermark.
+     *
+     * Shrinking never goes below the size this hash map was created with.
+     */
+    private void startShrink() {
+        if (this.shrinkSize == -1 && this.size > this.minSize
+                && this.items + this.tombstones < this.size*SHRINK_LOAD) {
+            this.shrinkSize = this.max(this.size/2, this.minSize);
+            this.evacInd = this.size - 1;
+        }
+    }
+    /**
+     * Evacuates up to n indices at or past shrinkSize.
+     *
+     * Active nodes are moved to free indices below shrinkSize. Once no active
+     * nodes are left past shrinkSize, the size of this hash map is reduced,
+     * and the chunks that are entirely past it are dropped. The directories of
+     * chunks keep their length, for the next time this hash map grows.
+     *
+     * @param       n       the maximum number of indices to evacuate
+     */
+    private void evacuate(int n) {
+        for (int k = 0; k < n && this.evacInd >= this.shrinkSize; k++, this.evacInd--) {
+            if (this.isActive(this.evacInd)) this.relocate(this.evacInd);
+        }
+        if (this.evacInd < this.shrinkSize) {
+            for (int c = chunkCount(this.shrinkSize); c < chunkCount(this.size); c++) {
+                this.chunks[c] = null;
+                this.bitmaps[c] = null;
+            }
+            this.size = this.shrinkSize;
+            this.shrinkSize = -1;
+        }
+    }
+    /**
+     * Moves the active node at index from to the first available index.
+     *
+     * The moved node keeps its children, and its parent (or the root index)
+     * is updated to point to the new index.
+     *
+     * @param       from    the index of the node to be moved
+     */
+    private void relocate(int from) {
+        int to = this.getAvailableNode();
+        this.claim(to);
+        Node src = this.node(from);
+        Node dst = this.node(to);
+        dst.key = src.key;
+        dst.value = src.value;
+        dst.height = src.height;
+        dst.left = src.left;
+        dst.right = src.right;
+        if (this.rootInd == from) {
+            this.rootInd = to;
+        } else {
+            int parentInd = this.findParent(src.key, this.rootInd);
+            if (src.key < this.node(parentInd).key) this.node(parentInd).left = to;
+            else this.node(parentInd).right = to;
+        }
+        this.bitFlip(to);
+        src.clean();
+        this.bitFlip(from);
+    }
+    /**
+     * Returns the index of the parent of the node with the given key.
+     *
+     * The node with the given key must be in the subtree rooted by the node
+     * at startInd, and must not be that node itself.
+     *
+     * @param       key         the key of the child node
+     * @param       startInd    the index of the subtree root
+     * @return      the index of the parent of the node with the given key
+     */
+    private int findParent(int key, int startInd) {
+        int childInd = (key < this.node(startInd).key) ? this.node(startInd).left : this.node(startInd).right;
+        if (this.node(childInd).key == key) {
+            return startInd;
+        } else {
+            return this.findParent(key, childInd);
+        }
+    }
+
+    //LAZY DELETION UTILITIES (PRIVATE)
+    /**
+     * Makes the node with the given key a tombstone, and returns its value.
+     *
+     * The node stays in the tree, so no rotations are done, and finding it
+     * takes O(log n) time. Once tombstones reach the purge threshold, or the
+     * keys listed for the next purge reach twice that, they are all removed
+     * with {@link FixedSizeHashMap#purge}.
+     *
+     * @param       hash    the hash of the key of the entry to be deleted
+     * @param       key     the key of the entry to be deleted (or null)
+     * @return      the value associated with key or null
+     */
+    private T bury(int hash, String key) {
+        int nodeInd = this.find(hash, this.rootInd);
+        if (nodeInd == -1 || this.node(nodeInd).value == null) {
+            return null;
+        }
+        T retval = (T) this.node(nodeInd).value;
+        if (this.dictionary != null) this.dictionary.release(retval);
+        this.node(nodeInd).value = null;
+        this.items--;
+        this.tombstones++;
+        if (this.tombCount == this.tombKeys.length) {
+            this.tombKeys = Arrays.copyOf(this.tombKeys, this.max(16, 2*this.tombCount));
+        }
+        this.tombKeys[this.tombCount++] = hash;
+        if (this.feed != null) {
+            this.feed.publish(ChangeFeed.Type.DELETE, key, retval);
+        }
+        if (this.tombstones >= this.purgeThreshold*this.size
+                || this.tombCount >= 2*this.purgeThreshold*this.size) {
+            this.purge();
+        }
+        if (this.isGrowable()) {
+            this.step();
+            this.startShrink();
+        }
+        return retval;
+    }
+    /**
+     * Sets the value of a tombstone at index nodeInd, making it an item again.
+     *
+     * This fails if nodeInd is not a tombstone (the key is already used) or
+     * if value is null.
+     *
+     * @param       nodeInd     the index of the node with key
+     * @param       key         the key to be associated (or null)
+     * @param       value       the value to be associated
+     * @return      a boolean indicating success (true) or failure (false)
+     */
+    private boolean revive(int nodeInd, String key, T value) {
+        if (this.node(nodeInd).value != null || value == null) {
+            return false;
+        }
+        this.node(nodeInd).value = (this.dictionary != null) ? this.dictionary.intern(value) : value;
+        this.tombstones--;
+        this.items++;
+        if (this.feed != null) {
+            this.feed.publish(ChangeFeed.Type.SET, key, (T) this.node(nodeInd).value);
+        }
+        return true;
+    }
+    /**
+     * Removes every tombstone from the implicit tree.
+     *
+     * Each tombstone is removed with {@link FixedSizeHashMap#remove}, which
+     * rebalances the tree on the way back up, and its node is marked inactive.
+     */
+    private void purge() {
+        for (int i = 0; i < this.tombCount; i++) {
+            int key = this.tombKeys[i];
+            int nodeInd = this.find(key, this.rootInd);
+            if (nodeInd != -1 && this.node(nodeInd).value == null) {
+                this.rootInd = this.remove(key, this.rootInd);
+                this.node(this.delInd).clean();
+                this.bitFlip(this.delInd);
+                this.delInd = -1;
+                this.tombstones--;
+            }
+        }
+        this.tombCount = 0;
+    }
+
     //BITMAP UTILITIES (PRIVATE)
     /**
      * Returns the index of the first available node in the internal array.
      *
      * Iterates over this hash map's internal bitmap and searches for the first
-     * bit that is set to 0.
+     * bit that is set to 0. The nodes of a chunk that has not been created
+     * yet, and those past the end of a short chunk, are available.
      *
      * @return      The index of the first available node
      */
     private int getAvailableNode() {
-        int i = 0;
-        for (; this.bitmap[i] == -1; i++);
-        int j = 0;
-        for (; j < 8; j++) {
-            //break out of loop the first time a 0 is encountered
-            if ((this.bitmap[i] & (1 << j)) == 0) {
-                break;
+        for (int c = 0; c < chunkCount(this.size); c++) {
+            byte[] bits = this.bitmaps[c];
+            if (bits == null) {
+                return c*CHUNK;
+            }
+            int i = 0;
+            for (; i < bits.length && bits[i] == -1; i++);
+            int j = 0;
+            for (; i < bits.length && j < 8; j++) {
+                //break out of loop the first time a 0 is encountered
+                if ((bits[i] & (1 << j)) == 0) {
+                    break;
+                }
+            }
+            if (i < bits.length || bits.length < CHUNK/8) {
+                //ensure the returned value is less than the max size of this hashmap
+                return (c*CHUNK + 8*i + j < this.size) ? c*CHUNK + 8*i + j : -1;
             }
         }
-        //ensure the returned value is less than the max size of this hashmap
-        return (8*i + j < this.size) ? 8*i + j : -1;
+        return -1;
     }
 
+    /**
+     * Returns whether the xth bit in the hash map's internal bitmap is set.
+     *
+     * @param       x       the bitmap index that should be checked
+     * @return      true if the node at index x is active
+     */
+    private boolean isActive(int x) {
+        byte[] bits = this.bitmaps[x >>> CHUNK_BITS];
+        int y = x & (CHUNK - 1);
+        return bits != null && y/8 < bits.length && (bits[y/8] & (1 << (y%8))) != 0;
+    }
     /**
      * Flips the xth bit in the hash map's internal bitmap.
      *
+     * The chunk of node x must have been created.
+     *
      * @param       x       the bitmap index that should be flipped
      */
     private void bitFlip(int x) {
-        int index = x/8;
-        int offset = x%8;
-        this.bitmap[index] ^= (1 << offset);
+        int y = x & (CHUNK - 1);
+        int index = y/8;
+        int offset = y%8;
+        this.bitmaps[x >>> CHUNK_BITS][index] ^= (1 << offset);
+    }
+    /**
+     * Returns the number of chunks needed to hold the given number of nodes.
+     *
+     * @param       size    a number of nodes
+     * @return      the number of chunks that hold size nodes
+     */
+    private static int chunkCount(int size) {
+        return (int)(((long)size + CHUNK - 1) >>> CHUNK_BITS);
     }
 
     //MISC UTILITIES
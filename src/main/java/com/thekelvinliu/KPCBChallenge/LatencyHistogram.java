@@ -0,0 +1,148 @@
+package com.thekelvinliu.KPCBChallenge;
+
+/**
+ * A log-linear histogram of latencies in the style of HdrHistogram.
+ *
+ * Values below 128 are counted exactly. Larger values are bucketed by their
+ * highest set bit, and each power of two is split into 64 linear sub-buckets,
+ * so a reported percentile is within 1.6% of the recorded value. A histogram
+ * is not thread-safe; each thread should record into its own histogram, and
+ * they can be merged with {@link LatencyHistogram#add} afterwards.
+ */
+public class LatencyHistogram {
+    //CONSTANTS
+    /**
+     * The number of values that are counted exactly.
+     */
+    private static final int LINEAR = 128;
+    /**
+     * The number of sub-buckets for each power of two past LINEAR.
+     */
+    private static final int SUB_BUCKETS = 64;
+    /**
+     * The number of buckets, which covers every non-negative long.
+     */
+    private static final int BUCKETS = LINEAR + (63 - 7 + 1)*SUB_BUCKETS;
+
+    //INSTANCE VARIABLES
+    /**
+     * The number of recorded values in each bucket.
+     */
+    private final long[] counts;
+    /**
+     * The total number of recorded values.
+     */
+    private long total;
+    /**
+     * The sum of all recorded values.
+     */
+    private long sum;
+    /**
+     * The largest recorded value.
+     */
+    private long max;
+
+    //CONSTRUCTOR
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    //METHODS
+    /**
+     * Records a single value. Negative values are recorded as zero.
+     *
+     * @param       value   the value to record (usually nanoseconds)
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        this.counts[index(value)]++;
+        this.total++;
+        this.sum += value;
+        if (value > this.max) this.max = value;
+    }
+    /**
+     * Adds all values recorded by another histogram to this histogram.
+     *
+     * @param       other   the histogram to merge into this one
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) this.counts[i] += other.counts[i];
+        this.total += other.total;
+        this.sum += other.sum;
+        if (other.max > this.max) this.max = other.max;
+    }
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return      the number of recorded values
+     */
+    public long count() {
+        return this.total;
+    }
+    /**
+     * Returns the mean of the recorded values, or 0 if there are none.
+     *
+     * @return      the mean of the recorded values
+     */
+    public double mean() {
+        return (this.total > 0) ? (double)this.sum/this.total : 0;
+    }
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return      the largest recorded value
+     */
+    public long max() {
+        return this.max;
+    }
+    /**
+     * Returns the value at the given percentile, or 0 if there are no values.
+     *
+     * The returned value is the upper bound of the bucket holding the
+     * percentile, capped at the largest recorded value.
+     *
+     * @param       percentile  the percentile, between 0 and 100
+     * @return      the value at the given percentile
+     */
+    public long percentile(double percentile) {
+        if (this.total == 0) return 0;
+        long rank = (long)Math.ceil(percentile/100*this.total);
+        if (rank < 1) rank = 1;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) return Math.min(upperBound(i), this.max);
+        }
+        return this.max;
+    }
+
+    //BUCKET UTILITIES (PRIVATE)
+    /**
+     * Returns the index of the bucket that holds the given value.
+     *
+     * @param       value   a non-negative value
+     * @return      the index of the bucket holding value
+     */
+    private static int index(long value) {
+        if (value < LINEAR) return (int)value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 6;
+        return LINEAR + (shift - 1)*SUB_BUCKETS + (int)(value >>> shift) - SUB_BUCKETS;
+    }
+    /**
+     * Returns the largest value that falls into the bucket at index i.
+     *
+     * @param       i       the index of a bucket
+     * @return      the largest value of the bucket at index i
+     */
+    private static long upperBound(int i) {
+        if (i < LINEAR) return i;
+        int shift = (i - LINEAR)/SUB_BUCKETS + 1;
+        long mantissa = (i - LINEAR)%SUB_BUCKETS + SUB_BUCKETS;
+        long bound = ((mantissa + 1) << shift) - 1;
+        //the last bucket's bound overflows a long
+        return (bound > 0) ? bound : Long.MAX_VALUE;
+    }
+}
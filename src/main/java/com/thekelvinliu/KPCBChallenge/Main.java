@@ -1,12 +1,21 @@
 package com.thekelvinliu.KPCBChallenge;
 
 import java.io.Console;
+import java.util.Arrays;
 
 /**
  * A text-based, interactive program that demonstrates FixedSizeHashMap.
+ *
+ * When run with --replay followed by a trace and a size, it instead replays
+ * the trace non-interactively with {@link TraceReplay}.
  */
 public class Main {
     public static void main(String[] args) {
+        //replay a trace instead of prompting
+        if (args.length > 0 && args[0].equals("--replay")) {
+            TraceReplay.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         //variables
         String input, key, value;
         int choice;
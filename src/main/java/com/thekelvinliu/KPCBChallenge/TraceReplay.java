@@ -0,0 +1,435 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a recorded log of operations against a FixedSizeHashMap.
+ *
+ * A trace is a text file with one operation per line:<p>
+ * set &lt;key&gt; &lt;value&gt;<p>
+ * get &lt;key&gt;<p>
+ * delete &lt;key&gt;<p>
+ * Fields are separated by spaces or tabs, keys cannot contain either, and a
+ * value is the rest of its line, which must not be blank. Empty lines and
+ * lines starting with '#' are ignored, and any other line is counted as
+ * malformed and skipped.
+ * <p>
+ * The trace is memory-mapped (in windows, if it is very large) and parsed
+ * straight from its bytes. The hash of an ASCII key is computed from its
+ * bytes, exactly as {@link java.lang.String#hashCode()} would, so no String
+ * is built for it; only the values of sets (and non-ASCII keys) are decoded.
+ * The latency of every call to the hash map is recorded into a
+ * {@link LatencyHistogram} for its operation.
+ */
+public class TraceReplay {
+    //HELPER CLASS
+    /**
+     * The kinds of operations in a trace.
+     */
+    public enum Operation {
+        SET, GET, DELETE
+    }
+
+    //CONSTANTS
+    /**
+     * The largest number of bytes of the trace that are mapped at once.
+     */
+    private static final int WINDOW = 1 << 30;
+    /**
+     * The percentiles reported for each operation.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    //INSTANCE VARIABLES
+    /**
+     * The hash map that operations are applied to.
+     */
+    private final FixedSizeHashMap<String> map;
+    /**
+     * The largest number of bytes of the trace that are mapped at once.
+     */
+    private final int window;
+    /**
+     * The latency of each operation, in nanoseconds.
+     */
+    private final LatencyHistogram[] histograms;
+    /**
+     * The number of failed operations of each kind.
+     *
+     * A get or delete fails if its key is not found.
+     */
+    private final long[] failed;
+    /**
+     * The number of sets that failed because the key was already used.
+     */
+    private long duplicates;
+    /**
+     * The number of sets that failed because the hash map was full.
+     */
+    private long full;
+    /**
+     * The number of lines that could not be parsed.
+     */
+    private long malformed;
+    /**
+     * A buffer for decoding keys and values, grown as needed.
+     */
+    private byte[] scratch;
+
+    //CONSTRUCTOR
+    /**
+     * Creates a replay that applies operations to the given hash map.
+     *
+     * @param       map     the hash map to replay traces against
+     */
+    public TraceReplay(FixedSizeHashMap<String> map) {
+        this(map, WINDOW);
+    }
+    /**
+     * Creates a replay that maps at most window bytes of a trace at once.
+     *
+     * @param       map     the hash map to replay traces against
+     * @param       window  the largest number of bytes mapped at once
+     */
+    TraceReplay(FixedSizeHashMap<String> map, int window) {
+        this.map = map;
+        this.window = window;
+        this.histograms = new LatencyHistogram[Operation.values().length];
+        for (int i = 0; i < this.histograms.length; i++) {
+            this.histograms[i] = new LatencyHistogram();
+        }
+        this.failed = new long[Operation.values().length];
+        this.scratch = new byte[64];
+    }
+
+    //METHODS
+    /**
+     * Applies every operation in the trace at path to the hash map.
+     *
+     * @param       path    the path of the trace
+     * @throws      IOException     if the trace cannot be read, or has a line
+     *                              longer than the mapping window
+     */
+    public void replay(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(this.window, size - position);
+                boolean last = position + length == size;
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = this.replayWindow(buffer, (int)length, last);
+                if (consumed == 0) {
+                    throw new IOException("Line at byte " + position + " is longer than "
+                                          + this.window + " bytes.");
+                }
+                position += consumed;
+            }
+        }
+    }
+    /**
+     * Returns the number of operations of the given kind that were replayed.
+     *
+     * @param       op      a kind of operation
+     * @return      the number of operations of that kind
+     */
+    public long getCount(Operation op) {
+        return this.histograms[op.ordinal()].count();
+    }
+    /**
+     * Returns the number of operations of the given kind that failed.
+     *
+     * @param       op      a kind of operation
+     * @return      the number of failed operations of that kind
+     */
+    public long getFailed(Operation op) {
+        return this.failed[op.ordinal()];
+    }
+    /**
+     * Returns the number of sets that failed because the key was already used.
+     *
+     * @return      the number of sets of duplicate keys
+     */
+    public long getDuplicates() {
+        return this.duplicates;
+    }
+    /**
+     * Returns the number of sets that failed because the hash map was full.
+     *
+     * @return      the number of sets to a full hash map
+     */
+    public long getFull() {
+        return this.full;
+    }
+    /**
+     * Returns the number of lines that could not be parsed.
+     *
+     * @return      the number of malformed lines
+     */
+    public long getMalformed() {
+        return this.malformed;
+    }
+    /**
+     * Returns the latencies (in nanoseconds) of operations of the given kind.
+     *
+     * @param       op      a kind of operation
+     * @return      the latency histogram of that kind of operation
+     */
+    public LatencyHistogram getHistogram(Operation op) {
+        return this.histograms[op.ordinal()];
+    }
+
+    //PARSING UTILITIES (PRIVATE)
+    /**
+     * Replays every complete line in a window of the trace.
+     *
+     * Unless this is the last window, a line that runs past its end is left
+     * for the next window.
+     *
+     * @param       buffer  the mapped window
+     * @param       length  the number of bytes in the window
+     * @param       last    whether the window ends at the end of the trace
+     * @return      the number of bytes consumed
+     */
+    private int replayWindow(ByteBuffer buffer, int length, boolean last) {
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) == '\n') {
+                this.replayLine(buffer, start, i);
+                start = i + 1;
+            }
+        }
+        if (last && start < length) {
+            this.replayLine(buffer, start, length);
+            start = length;
+        }
+        return start;
+    }
+    /**
+     * Parses and applies a single line, which excludes its line break.
+     *
+     * @param       buffer  the mapped window holding the line
+     * @param       start   the index of the first byte of the line
+     * @param       end     the index just past the last byte of the line
+     */
+    private void replayLine(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r') end--;
+        if (start == end || buffer.get(start) == '#') return;
+        //split off the operation and the key
+        int opEnd = skip(buffer, start, end, false);
+        int keyStart = skip(buffer, opEnd, end, true);
+        int keyEnd = skip(buffer, keyStart, end, false);
+        Operation op = operation(buffer, start, opEnd);
+        if (op == null || keyStart == keyEnd) {
+            this.malformed++;
+            return;
+        }
+        int hash = this.hash(buffer, keyStart, keyEnd);
+        long begin;
+        long finish;
+        switch (op) {
+            case SET: {
+                int valueStart = skip(buffer, keyEnd, end, true);
+                if (valueStart == end) {
+                    this.malformed++;
+                    return;
+                }
+                String value = this.decode(buffer, valueStart, end);
+                begin = System.nanoTime();
+                boolean ok = this.map.set(hash, null, value);
+                finish = System.nanoTime();
+                if (!ok) {
+                    this.failed[op.ordinal()]++;
+                    //a failed set leaves the map unchanged, so look for the key
+                    if (this.map.get(hash) != null) {
+                        this.duplicates++;
+                    } else {
+                        this.full++;
+                    }
+                }
+                break;
+            }
+            case GET: {
+                begin = System.nanoTime();
+                boolean ok = this.map.get(hash) != null;
+                finish = System.nanoTime();
+                if (!ok) this.failed[op.ordinal()]++;
+                break;
+            }
+            case DELETE:
+            default: {
+                begin = System.nanoTime();
+                boolean ok = this.map.delete(hash, null) != null;
+                finish = System.nanoTime();
+                if (!ok) this.failed[op.ordinal()]++;
+                break;
+            }
+        }
+        this.histograms[op.ordinal()].record(finish - begin);
+    }
+    /**
+     * Returns the operation named by the bytes from start to end, or null.
+     *
+     * @param       buffer  the mapped window
+     * @param       start   the index of the first byte of the name
+     * @param       end     the index just past the last byte of the name
+     * @return      the named operation, or null if there is none
+     */
+    private static Operation operation(ByteBuffer buffer, int start, int end) {
+        for (Operation op : Operation.values()) {
+            String name = op.name();
+            if (end - start != name.length()) continue;
+            int i = 0;
+            //names are matched ignoring case
+            while (i < name.length() && (buffer.get(start + i) & ~0x20) == name.charAt(i)) i++;
+            if (i == name.length()) return op;
+        }
+        return null;
+    }
+    /**
+     * Returns the hash of the key held by the bytes from start to end.
+     *
+     * This is the same as the String.hashCode of the key decoded as UTF-8.
+     * For an ASCII key, every byte is one char, so the hash is computed from
+     * the bytes directly.
+     *
+     * @param       buffer  the mapped window
+     * @param       start   the index of the first byte of the key
+     * @param       end     the index just past the last byte of the key
+     * @return      the hash of the key
+     */
+    private int hash(ByteBuffer buffer, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < 0) return this.decode(buffer, start, end).hashCode();
+            h = 31*h + b;
+        }
+        return h;
+    }
+    /**
+     * Decodes the bytes from start to end as a UTF-8 string.
+     *
+     * @param       buffer  the mapped window
+     * @param       start   the index of the first byte
+     * @param       end     the index just past the last byte
+     * @return      the decoded string
+     */
+    private String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (length > this.scratch.length) {
+            this.scratch = new byte[Math.max(length, 2*this.scratch.length)];
+        }
+        for (int i = 0; i < length; i++) this.scratch[i] = buffer.get(start + i);
+        return new String(this.scratch, 0, length, StandardCharsets.UTF_8);
+    }
+    /**
+     * Returns the index of the first byte from start that is (or is not)
+     * a space or tab, or end if there is none.
+     *
+     * @param       buffer  the mapped window
+     * @param       start   the index to start at
+     * @param       end     the index to stop at
+     * @param       blank   true to skip spaces and tabs, false to skip others
+     * @return      the index of the first byte that is not skipped
+     */
+    private static int skip(ByteBuffer buffer, int start, int end, boolean blank) {
+        int i = start;
+        while (i < end && ((buffer.get(i) == ' ' || buffer.get(i) == '\t') == blank)) i++;
+        return i;
+    }
+
+    //DRIVER
+    /**
+     * Replays a trace against a new hash map and prints a report.
+     *
+     * Arguments are the path of the trace and the size of the hash map,
+     * optionally followed by any of growable, deduplicate, or lazy-delete.
+     * If the arguments are bad or the trace cannot be read, this prints why
+     * and exits with status 1.
+     *
+     * @param       args    the path, the size, and any flags
+     */
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(":( Could not replay the trace: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    /**
+     * Parses the arguments, replays the trace, and prints a report.
+     *
+     * @param       args    the path, the size, and any flags
+     * @throws      IOException     if the trace cannot be read
+     * @throws      IllegalArgumentException    if the arguments are bad
+     */
+    private static void run(String[] args) throws IOException {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: <trace> <size> [growable|deduplicate|lazy-delete]...");
+        }
+        Path path = Paths.get(args[0]);
+        if (!Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("'" + args[0] + "' is not a file.");
+        }
+        int size;
+        try {
+            size = Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + args[1] + "' is not a positive integer.");
+        }
+        int flags = 0;
+        for (int i = 2; i < args.length; i++) {
+            switch (args[i]) {
+                case "growable": flags |= FixedSizeHashMap.GROWABLE; break;
+                case "deduplicate": flags |= FixedSizeHashMap.DEDUPLICATE; break;
+                case "lazy-delete": flags |= FixedSizeHashMap.LAZY_DELETE; break;
+                default:
+                    throw new IllegalArgumentException("Unknown flag: " + args[i]);
+            }
+        }
+        FixedSizeHashMap<String> map = new FixedSizeHashMap<String>(size, flags);
+        TraceReplay replay = new TraceReplay(map);
+        long start = System.nanoTime();
+        replay.replay(path);
+        double seconds = (System.nanoTime() - start)/1e9;
+        long operations = 0;
+        for (Operation op : Operation.values()) operations += replay.getCount(op);
+        System.out.printf("Replayed %d operations from %s in %.3f s (%.0f ops/sec), %d malformed line(s).%n",
+                          operations, path, seconds, operations/seconds, replay.getMalformed());
+        System.out.printf("set: %d ok, %d failed (%d duplicate key, %d full).%n",
+                          replay.getCount(Operation.SET) - replay.getFailed(Operation.SET),
+                          replay.getFailed(Operation.SET), replay.getDuplicates(), replay.getFull());
+        System.out.printf("get: %d found, %d not found.%n",
+                          replay.getCount(Operation.GET) - replay.getFailed(Operation.GET),
+                          replay.getFailed(Operation.GET));
+        System.out.printf("delete: %d found, %d not found.%n",
+                          replay.getCount(Operation.DELETE) - replay.getFailed(Operation.DELETE),
+                          replay.getFailed(Operation.DELETE));
+        System.out.printf("Final size %d, load %.3f.%n", map.getSize(), map.load());
+        replay.report();
+    }
+    /**
+     * Prints the latency percentiles (in microseconds) of each operation.
+     */
+    private void report() {
+        System.out.printf("%-10s %10s %9s", "operation", "count", "mean(us)");
+        for (double p : PERCENTILES) System.out.printf(" %9s", "p" + p);
+        System.out.printf(" %9s%n", "max");
+        for (Operation op : Operation.values()) {
+            LatencyHistogram h = this.histograms[op.ordinal()];
+            if (h.count() == 0) continue;
+            System.out.printf("%-10s %10d %9.2f", op, h.count(), h.mean()/1e3);
+            for (double p : PERCENTILES) System.out.printf(" %9.2f", h.percentile(p)/1e3);
+            System.out.printf(" %9.2f%n", h.max()/1e3);
+        }
+    }
+}
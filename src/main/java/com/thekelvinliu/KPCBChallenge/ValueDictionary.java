@@ -0,0 +1,97 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.HashMap;
+
+/**
+ * A reference-counted dictionary of distinct values.
+ *
+ * Each distinct value (by {@link java.lang.Object#equals}) is held once, as a
+ * canonical instance. Every call to {@link ValueDictionary#intern} counts one
+ * more reference to the canonical instance, and every call to
+ * {@link ValueDictionary#release} counts one less. Once a value is no longer
+ * referenced, it is dropped from the dictionary so it can be collected.
+ *
+ * @param       <T>         the type of value held by this dictionary
+ * @see         com.thekelvinliu.KPCBChallenge.FixedSizeHashMap#DEDUPLICATE
+ */
+class ValueDictionary<T> {
+    //HELPER CLASS
+    /**
+     * A canonical value and the number of references to it.
+     *
+     * @param       <T>     the type of the value held by this entry
+     */
+    private static final class Entry<T> {
+        /**
+         * The canonical instance of a value.
+         */
+        private final T value;
+        /**
+         * The number of references to the canonical instance.
+         */
+        private int count;
+
+        /**
+         * Creates an unreferenced entry for a canonical instance.
+         *
+         * @param       value   the canonical instance
+         */
+        private Entry(T value) {
+            this.value = value;
+            this.count = 0;
+        }
+    }
+
+    //INSTANCE VARIABLES
+    /**
+     * The entry of every referenced value, keyed by the value itself.
+     */
+    private final HashMap<T, Entry<T>> entries;
+
+    //CONSTRUCTOR
+    /**
+     * Creates an empty dictionary.
+     */
+    ValueDictionary() {
+        this.entries = new HashMap<T, Entry<T>>();
+    }
+
+    //METHODS
+    /**
+     * Returns the canonical instance of a value, and counts a reference to it.
+     *
+     * If no equal value is in this dictionary, the given value becomes the
+     * canonical instance.
+     *
+     * @param       value   a non null value
+     * @return      the canonical instance equal to value
+     */
+    T intern(T value) {
+        Entry<T> entry = this.entries.get(value);
+        if (entry == null) {
+            entry = new Entry<T>(value);
+            this.entries.put(value, entry);
+        }
+        entry.count++;
+        return entry.value;
+    }
+    /**
+     * Counts one less reference to a value, dropping it if it is unreferenced.
+     *
+     * @param       value   a value previously returned by intern
+     */
+    void release(T value) {
+        Entry<T> entry = this.entries.get(value);
+        if (entry != null && --entry.count == 0) {
+            this.entries.remove(value);
+        }
+    }
+    /**
+     * Returns the number of distinct values in this dictionary.
+     *
+     * @return      the number of distinct values
+     */
+    int size() {
+        return this.entries.size();
+    }
+}
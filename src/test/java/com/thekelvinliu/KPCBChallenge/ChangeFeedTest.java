@@ -0,0 +1,125 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class ChangeFeedTest {
+    //capacity of the feed, and the number of changes made by each test
+    private static final int CAPACITY = 64;
+    private static final int CHANGES = 1000;
+    private FixedSizeHashMap<Integer> intMap;
+    //the first record that the reader thread of testBlock read out of order
+    private volatile String mismatch;
+
+    @Before
+    public void initializeHashMap() {
+        intMap = new FixedSizeHashMap<Integer>(CHANGES);
+    }
+
+    @Test
+    public void testSetAndDelete() {
+        ChangeFeed<Integer> feed = new ChangeFeed<Integer>(CAPACITY, ChangeFeed.Policy.BLOCK);
+        intMap.setChangeFeed(feed);
+        ChangeFeed<Integer>.Subscriber subscriber = feed.subscribe();
+        final List<String> seen = new ArrayList<String>();
+        assertTrue(intMap.set("a", 1));
+        assertFalse(intMap.set("a", 2));
+        assertEquals(1, (int)intMap.delete("a"));
+        assertNull(intMap.delete("a"));
+        assertEquals(2, subscriber.poll(r -> seen.add(r.toString()), CAPACITY));
+        assertEquals("(0, SET, a, 1)", seen.get(0));
+        assertEquals("(1, DELETE, a, 1)", seen.get(1));
+        assertEquals(1, feed.getSequence());
+        assertEquals(0, subscriber.poll(r -> seen.add(r.toString()), CAPACITY));
+    }
+
+    @Test
+    public void testSubscribersReadAtTheirOwnPace() {
+        ChangeFeed<Integer> feed = new ChangeFeed<Integer>(CAPACITY, ChangeFeed.Policy.BLOCK);
+        intMap.setChangeFeed(feed);
+        ChangeFeed<Integer>.Subscriber fast = feed.subscribe();
+        ChangeFeed<Integer>.Subscriber slow = feed.subscribe();
+        final int[] fastSeen = new int[1];
+        final int[] slowSeen = new int[1];
+        for (int i = 0; i < CHANGES; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+            fast.poll(r -> assertEquals(fastSeen[0]++, (int)r.getValue()), 1);
+            if (i%2 == 0) slow.poll(r -> assertEquals(slowSeen[0]++, (int)r.getValue()), 1);
+            if (i%CAPACITY == 0) slow.poll(r -> assertEquals(slowSeen[0]++, (int)r.getValue()), CAPACITY);
+        }
+        slow.poll(r -> assertEquals(slowSeen[0]++, (int)r.getValue()), CAPACITY);
+        assertEquals(CHANGES, fastSeen[0]);
+        assertEquals(CHANGES, slowSeen[0]);
+    }
+
+    @Test(timeout = 10000)
+    public void testBlock() throws InterruptedException {
+        ChangeFeed<Integer> feed = new ChangeFeed<Integer>(CAPACITY, ChangeFeed.Policy.BLOCK);
+        intMap.setChangeFeed(feed);
+        final ChangeFeed<Integer>.Subscriber subscriber = feed.subscribe();
+        final int[] seen = new int[1];
+        Thread reader = new Thread(() -> {
+            while (seen[0] < CHANGES) {
+                subscriber.poll(r -> {
+                    //keep reading after a mismatch, so the writer is never stuck
+                    if (mismatch == null && !Integer.valueOf(seen[0]).equals(r.getValue())) {
+                        mismatch = "expected " + seen[0] + " but read " + r;
+                    }
+                    seen[0]++;
+                }, CAPACITY);
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+        for (int i = 0; i < CHANGES; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        reader.join();
+        assertNull(mismatch, mismatch);
+        assertEquals(CHANGES, seen[0]);
+    }
+
+    @Test
+    public void testDrop() {
+        ChangeFeed<Integer> feed = new ChangeFeed<Integer>(CAPACITY, ChangeFeed.Policy.DROP);
+        intMap.setChangeFeed(feed);
+        ChangeFeed<Integer>.Subscriber subscriber = feed.subscribe();
+        for (int i = 0; i < CHANGES; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        assertEquals(CHANGES - CAPACITY, feed.getDropped());
+        final int[] seen = new int[1];
+        assertEquals(CAPACITY, subscriber.poll(r -> assertEquals(seen[0]++, (int)r.getValue()), CHANGES));
+    }
+
+    @Test
+    public void testOverwrite() {
+        ChangeFeed<Integer> feed = new ChangeFeed<Integer>(CAPACITY, ChangeFeed.Policy.OVERWRITE);
+        intMap.setChangeFeed(feed);
+        ChangeFeed<Integer>.Subscriber subscriber = feed.subscribe();
+        for (int i = 0; i < CHANGES; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        final int[] seen = {CHANGES - CAPACITY};
+        assertEquals(CAPACITY, subscriber.poll(r -> assertEquals(seen[0]++, (int)r.getValue()), CHANGES));
+        assertEquals(CHANGES - CAPACITY, subscriber.getLost());
+    }
+
+    @Test
+    public void testUnsubscribe() {
+        ChangeFeed<Integer> feed = new ChangeFeed<Integer>(CAPACITY, ChangeFeed.Policy.DROP);
+        intMap.setChangeFeed(feed);
+        feed.unsubscribe(feed.subscribe());
+        for (int i = 0; i < CHANGES; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        assertEquals(0, feed.getDropped());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityNotPowerOfTwo() {
+        new ChangeFeed<Integer>(100, ChangeFeed.Policy.BLOCK);
+    }
+}
@@ -0,0 +1,64 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class DeduplicatingFixedSizeHashMapTest {
+    //size of the hash map, and the number of distinct values it holds
+    private static final int SIZE = 5000;
+    private static final int DISTINCT = 50;
+    private FixedSizeHashMap<String> strMap;
+
+    @Before
+    public void initializeHashMap() {
+        strMap = new FixedSizeHashMap<String>(SIZE, FixedSizeHashMap.DEDUPLICATE);
+    }
+
+    @Test
+    public void testCanonicalValue() {
+        String first = new String("status_ok");
+        String second = new String("status_ok");
+        assertTrue(strMap.set("first", first));
+        assertTrue(strMap.set("second", second));
+        assertSame(first, strMap.get("first"));
+        assertSame(first, strMap.get("second"));
+    }
+
+    @Test
+    public void testGet() {
+        for (int i = 0; i < SIZE; i++) {
+            String v = "value_" + Integer.toString(i%DISTINCT);
+            assertTrue(strMap.set("test_key_" + Integer.toString(i), v));
+        }
+        for (int i = 0; i < SIZE; i++) {
+            String v = "value_" + Integer.toString(i%DISTINCT);
+            assertEquals(v, strMap.get("test_key_" + Integer.toString(i)));
+            assertSame(strMap.get("test_key_" + Integer.toString(i%DISTINCT)),
+                       strMap.get("test_key_" + Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testRelease() {
+        String first = new String("status_ok");
+        String second = new String("status_ok");
+        strMap.set("a", first);
+        strMap.set("b", first);
+        assertSame(first, strMap.delete("a"));
+        assertSame(first, strMap.delete("b"));
+        //every reference to first was deleted, so second is now canonical
+        strMap.set("c", second);
+        assertSame(second, strMap.get("c"));
+    }
+
+    @Test
+    public void testDuplicateKeyDoesNotIntern() {
+        String first = new String("status_ok");
+        String second = new String("status_ok");
+        assertTrue(strMap.set("a", first));
+        assertFalse(strMap.set("a", new String("status_ok")));
+        strMap.delete("a");
+        strMap.set("b", second);
+        assertSame(second, strMap.get("b"));
+    }
+}
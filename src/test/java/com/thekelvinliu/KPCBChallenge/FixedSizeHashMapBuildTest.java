@@ -0,0 +1,88 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.AbstractMap.SimpleEntry;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class FixedSizeHashMapBuildTest {
+    //number of entries to build from, large enough to be built in parallel
+    private static final int ENTRIES = 50000;
+
+    private static Map.Entry<String, Integer> entry(String key, Integer value) {
+        return new SimpleEntry<String, Integer>(key, value);
+    }
+
+    private static Stream<Map.Entry<String, Integer>> entries(int count) {
+        return IntStream.range(0, count).parallel()
+            .mapToObj(i -> entry("test_key_" + Integer.toString(i), i));
+    }
+
+    @Test
+    public void testBuild() {
+        FixedSizeHashMap<Integer> intMap = FixedSizeHashMap.build(entries(ENTRIES), ENTRIES);
+        assertEquals(1.0, intMap.load(), 0.00001);
+        for (int i = 0; i < ENTRIES; i++) {
+            assertEquals(i, (int)intMap.get("test_key_" + Integer.toString(i)));
+        }
+        assertNull(intMap.get("missing_key"));
+    }
+
+    @Test
+    public void testBuildThenUpdate() {
+        FixedSizeHashMap<Integer> intMap = FixedSizeHashMap.build(entries(ENTRIES), 2*ENTRIES);
+        assertEquals(0.5, intMap.load(), 0.00001);
+        for (int i = 0; i < ENTRIES; i += 2) {
+            assertEquals(i, (int)intMap.delete("test_key_" + Integer.toString(i)));
+        }
+        for (int i = ENTRIES; i < 2*ENTRIES; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        for (int i = 0; i < 2*ENTRIES; i++) {
+            Integer v = intMap.get("test_key_" + Integer.toString(i));
+            if (i < ENTRIES && i%2 == 0) {
+                assertNull(v);
+            } else {
+                assertEquals(i, (int)v);
+            }
+        }
+    }
+
+    @Test
+    public void testBuildThenGrow() {
+        //the last chunk of nodes only fits ENTRIES until the hash map grows
+        FixedSizeHashMap<Integer> intMap = FixedSizeHashMap.build(entries(ENTRIES), ENTRIES,
+                                                                  FixedSizeHashMap.GROWABLE);
+        for (int i = ENTRIES; i < 2*ENTRIES; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        assertTrue(intMap.getSize() >= 2*ENTRIES);
+        for (int i = 0; i < 2*ENTRIES; i++) {
+            assertEquals(i, (int)intMap.get("test_key_" + Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testDuplicatesAndNulls() {
+        FixedSizeHashMap<Integer> intMap = FixedSizeHashMap.build(Stream.of(
+            entry("a", null), entry("a", 1), entry("b", 2), entry("a", 3), entry("b", 4)), 4);
+        assertEquals(0.5, intMap.load(), 0.00001);
+        assertEquals(1, (int)intMap.get("a"));
+        assertEquals(2, (int)intMap.get("b"));
+    }
+
+    @Test
+    public void testEmpty() {
+        FixedSizeHashMap<Integer> intMap = FixedSizeHashMap.build(entries(0), 10);
+        assertEquals(0.0, intMap.load(), 0.00001);
+        assertTrue(intMap.set("a", 1));
+        assertEquals(1, (int)intMap.get("a"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyEntries() {
+        FixedSizeHashMap.build(entries(ENTRIES), ENTRIES - 1);
+    }
+}
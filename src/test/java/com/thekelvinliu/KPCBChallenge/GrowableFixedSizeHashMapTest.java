@@ -0,0 +1,68 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class GrowableFixedSizeHashMapTest {
+    //initial size of the hash map, and how many items to grow it to
+    private static final int INITIAL_SIZE = 16;
+    private static final int ITEMS = 5000;
+    private FixedSizeHashMap<Integer> intMap;
+
+    @Before
+    public void initializeHashMap() {
+        intMap = new FixedSizeHashMap<Integer>(INITIAL_SIZE, FixedSizeHashMap.GROWABLE);
+    }
+
+    @Test
+    public void testGrow() {
+        for (int i = 0; i < ITEMS; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+            assertEquals((float)(i + 1)/intMap.getSize(), intMap.load(), 0.00001);
+        }
+        assertTrue(intMap.getSize() >= ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            assertEquals(i, (int)intMap.get("test_key_" + Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testShrink() {
+        for (int i = 0; i < ITEMS; i++) {
+            intMap.set("test_key_" + Integer.toString(i), i);
+        }
+        int grownSize = intMap.getSize();
+        for (int i = 10; i < ITEMS; i++) {
+            assertEquals(i, (int)intMap.delete("test_key_" + Integer.toString(i)));
+            assertEquals((float)(ITEMS - i + 9)/intMap.getSize(), intMap.load(), 0.00001);
+        }
+        assertTrue(intMap.getSize() < grownSize);
+        assertTrue(intMap.getSize() >= INITIAL_SIZE);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, (int)intMap.get("test_key_" + Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testRegrow() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < ITEMS; i++) {
+                assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+            }
+            for (int i = 0; i < ITEMS; i++) {
+                assertEquals(i, (int)intMap.delete("test_key_" + Integer.toString(i)));
+            }
+            assertEquals(0.0, intMap.load(), 0.00001);
+        }
+    }
+
+    @Test
+    public void testNotGrowable() {
+        FixedSizeHashMap<Integer> fixedMap = new FixedSizeHashMap<Integer>(INITIAL_SIZE);
+        for (int i = 0; i < INITIAL_SIZE; i++) {
+            assertTrue(fixedMap.set("test_key_" + Integer.toString(i), i));
+        }
+        assertFalse(fixedMap.set("one_too_many", 0));
+        assertEquals(INITIAL_SIZE, fixedMap.getSize());
+    }
+}
@@ -0,0 +1,107 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import static org.junit.Assert.*;
+import org.junit.*;
+
+public class LazyDeleteFixedSizeHashMapTest {
+    //size of the hash map, and the fraction of it that tombstones may occupy
+    private static final int SIZE = 5000;
+    private static final float THRESHOLD = 0.1f;
+    private FixedSizeHashMap<Integer> intMap;
+
+    @Before
+    public void initializeHashMap() {
+        intMap = new FixedSizeHashMap<Integer>(SIZE, FixedSizeHashMap.LAZY_DELETE, THRESHOLD);
+    }
+
+    @Test
+    public void testDelete() {
+        for (int i = 0; i < SIZE; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(i, (int)intMap.delete("test_key_" + Integer.toString(i)));
+            assertNull(intMap.get("test_key_" + Integer.toString(i)));
+            assertNull(intMap.delete("test_key_" + Integer.toString(i)));
+            assertEquals((float)(SIZE - i - 1)/SIZE, intMap.load(), 0);
+        }
+    }
+
+    @Test
+    public void testRevive() {
+        assertTrue(intMap.set("key", 1));
+        assertEquals(1, (int)intMap.delete("key"));
+        assertFalse(intMap.set("key", null));
+        assertTrue(intMap.set("key", 2));
+        assertFalse(intMap.set("key", 3));
+        assertEquals(2, (int)intMap.get("key"));
+        assertEquals(1/(float)SIZE, intMap.load(), 0);
+    }
+
+    @Test
+    public void testPurge() {
+        //deleting more than the threshold purges tombstones along the way
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < SIZE; i++) {
+                assertTrue(intMap.set("test_key_" + Integer.toString(round*SIZE + i), i));
+            }
+            for (int i = 0; i < SIZE; i++) {
+                assertEquals(i, (int)intMap.delete("test_key_" + Integer.toString(round*SIZE + i)));
+            }
+            assertEquals(0, intMap.load(), 0);
+        }
+    }
+
+    @Test
+    public void testDeleteAndSetAgain() {
+        //tombstones never reach the threshold here, but the keys listed for
+        //the next purge do, so purges run while most of them were revived
+        for (int i = 0; i < SIZE/2; i++) {
+            assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+        }
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < SIZE/2; i++) {
+                assertEquals(i, (int)intMap.delete("test_key_" + Integer.toString(i)));
+                assertTrue(intMap.set("test_key_" + Integer.toString(i), i));
+            }
+        }
+        for (int i = 0; i < SIZE/2; i++) {
+            assertEquals(i, (int)intMap.get("test_key_" + Integer.toString(i)));
+        }
+        assertEquals(0.5, intMap.load(), 0);
+    }
+
+    @Test
+    public void testFullOfTombstones() {
+        FixedSizeHashMap<Integer> map = new FixedSizeHashMap<Integer>(100, FixedSizeHashMap.LAZY_DELETE, 1);
+        for (int i = 0; i < 100; i++) assertTrue(map.set("a" + Integer.toString(i), i));
+        for (int i = 0; i < 50; i++) map.delete("a" + Integer.toString(i));
+        //every node is taken, so the tombstones are purged to make room
+        for (int i = 0; i < 50; i++) assertTrue(map.set("b" + Integer.toString(i), i));
+        assertFalse(map.set("c", 0));
+        assertEquals(1, map.load(), 0);
+        for (int i = 50; i < 100; i++) assertEquals(i, (int)map.get("a" + Integer.toString(i)));
+        for (int i = 0; i < 50; i++) assertEquals(i, (int)map.get("b" + Integer.toString(i)));
+    }
+
+    @Test
+    public void testGrowable() {
+        FixedSizeHashMap<Integer> map = new FixedSizeHashMap<Integer>(16,
+            FixedSizeHashMap.LAZY_DELETE | FixedSizeHashMap.GROWABLE);
+        for (int i = 0; i < SIZE; i++) assertTrue(map.set("test_key_" + Integer.toString(i), i));
+        for (int i = 0; i < SIZE; i += 2) map.delete("test_key_" + Integer.toString(i));
+        for (int i = 0; i < SIZE; i++) {
+            if (i%2 == 0) {
+                assertNull(map.get("test_key_" + Integer.toString(i)));
+            } else {
+                assertEquals(i, (int)map.get("test_key_" + Integer.toString(i)));
+            }
+        }
+        assertEquals((float)(SIZE/2)/map.getSize(), map.load(), 0);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testBadThreshold() {
+        new FixedSizeHashMap<Integer>(SIZE, FixedSizeHashMap.LAZY_DELETE, 0);
+    }
+}
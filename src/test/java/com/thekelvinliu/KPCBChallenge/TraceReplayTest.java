@@ -0,0 +1,103 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import static org.junit.Assert.*;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.*;
+
+public class TraceReplayTest {
+    private static final String TRACE = "# a comment\n"
+        + "set apple red\n"
+        + "set banana yellow and green\r\n"
+        + "set apple green\n"
+        + "set cherry dark red\n"
+        + "set date brown\n"
+        + "\n"
+        + "get apple\n"
+        + "GET\tbanana\n"
+        + "get fig\n"
+        + "delete cherry\n"
+        + "delete cherry\n"
+        + "set elderberry purple\n"
+        + "put apple red\n"
+        + "set grape\n"
+        + "get cherry";
+    private FixedSizeHashMap<String> strMap;
+    private Path trace;
+
+    @Before
+    public void initializeHashMap() {
+        strMap = new FixedSizeHashMap<String>(3);
+    }
+
+    @After
+    public void deleteTrace() throws IOException {
+        if (trace != null) Files.delete(trace);
+    }
+
+    private Path write(String contents) throws IOException {
+        trace = Files.createTempFile("trace", ".log");
+        Files.write(trace, contents.getBytes(StandardCharsets.UTF_8));
+        return trace;
+    }
+
+    private void assertReplayed(TraceReplay replay) {
+        assertEquals(6, replay.getCount(TraceReplay.Operation.SET));
+        assertEquals(2, replay.getFailed(TraceReplay.Operation.SET));
+        assertEquals(1, replay.getDuplicates());
+        assertEquals(1, replay.getFull());
+        assertEquals(4, replay.getCount(TraceReplay.Operation.GET));
+        assertEquals(2, replay.getFailed(TraceReplay.Operation.GET));
+        assertEquals(2, replay.getCount(TraceReplay.Operation.DELETE));
+        assertEquals(1, replay.getFailed(TraceReplay.Operation.DELETE));
+        assertEquals(2, replay.getMalformed());
+        assertEquals(12, replay.getHistogram(TraceReplay.Operation.SET).count()
+                         + replay.getHistogram(TraceReplay.Operation.GET).count()
+                         + replay.getHistogram(TraceReplay.Operation.DELETE).count());
+        assertEquals("red", strMap.get("apple"));
+        assertEquals("yellow and green", strMap.get("banana"));
+        assertEquals("purple", strMap.get("elderberry"));
+        assertNull(strMap.get("cherry"));
+        assertEquals(1, strMap.load(), 0);
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        TraceReplay replay = new TraceReplay(strMap);
+        replay.replay(write(TRACE));
+        assertReplayed(replay);
+    }
+
+    @Test
+    public void testSmallWindow() throws IOException {
+        //lines straddle the windows, which are only a few lines long
+        TraceReplay replay = new TraceReplay(strMap, 40);
+        replay.replay(write(TRACE));
+        assertReplayed(replay);
+    }
+
+    @Test(expected = IOException.class)
+    public void testLineLongerThanWindow() throws IOException {
+        new TraceReplay(strMap, 8).replay(write("set a_long_key value\n"));
+    }
+
+    @Test
+    public void testBlankValue() throws IOException {
+        TraceReplay replay = new TraceReplay(strMap);
+        replay.replay(write("set grape \nset fig\t \t\n"));
+        assertEquals(2, replay.getMalformed());
+        assertEquals(0, replay.getCount(TraceReplay.Operation.SET));
+        assertNull(strMap.get("grape"));
+        assertNull(strMap.get("fig"));
+    }
+
+    @Test
+    public void testNonAsciiKey() throws IOException {
+        TraceReplay replay = new TraceReplay(strMap);
+        replay.replay(write("set cl\u00e9 caf\u00e9\nset \u9375 \u5024\n"));
+        assertEquals("caf\u00e9", strMap.get("cl\u00e9"));
+        assertEquals("\u5024", strMap.get("\u9375"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A counter of inserted records that only counts inserts once they complete.
+ *
+ * This follows YCSB's acknowledged counter. Inserting threads claim record
+ * numbers with {@link AcknowledgedCounter#next}, and acknowledge each one
+ * once its insert has returned. {@link AcknowledgedCounter#acknowledged} only
+ * moves past a record number once it and every smaller number have been
+ * acknowledged. Key choosers read that limit, so readers never pick a record
+ * whose insert is still in flight on another thread.
+ */
+public class AcknowledgedCounter {
+    //CONSTANTS
+    /**
+     * The largest number of claimed record numbers that may be unacknowledged.
+     */
+    private static final int WINDOW = 1 << 16;
+    /**
+     * The mask that maps a record number to its slot in the window.
+     */
+    private static final int MASK = WINDOW - 1;
+
+    //INSTANCE VARIABLES
+    /**
+     * The next record number to hand out.
+     */
+    private final AtomicLong counter;
+    /**
+     * For each slot, 1 if its record number was acknowledged but the limit
+     * has not moved past it yet.
+     */
+    private final AtomicIntegerArray window;
+    /**
+     * Held by the thread that moves the limit forward.
+     */
+    private final ReentrantLock lock;
+    /**
+     * Every record number below this has been acknowledged.
+     */
+    private volatile long limit;
+
+    //CONSTRUCTOR
+    /**
+     * Creates a counter that hands out record numbers starting at start.
+     *
+     * @param       start   the first record number, counted as acknowledged
+     *                      already
+     */
+    public AcknowledgedCounter(long start) {
+        this.counter = new AtomicLong(start);
+        this.window = new AtomicIntegerArray(WINDOW);
+        this.lock = new ReentrantLock();
+        this.limit = start;
+    }
+
+    //METHODS
+    /**
+     * Claims the next record number.
+     *
+     * @return      a record number that must be acknowledged once inserted
+     * @throws      IllegalStateException   if too many record numbers are
+     *                                      claimed but unacknowledged
+     */
+    public long next() {
+        long value = this.counter.getAndIncrement();
+        if (value - this.limit >= WINDOW) {
+            throw new IllegalStateException("Too many unacknowledged inserts.");
+        }
+        return value;
+    }
+    /**
+     * Acknowledges that the insert of a claimed record number has completed.
+     *
+     * Failed inserts must be acknowledged too, or the limit stops moving.
+     *
+     * @param       value   a record number returned by next
+     */
+    public void acknowledge(long value) {
+        this.window.set((int)value & MASK, 1);
+        //whoever holds the lock moves the limit; check again after releasing
+        //it, in case a slot was acknowledged while another thread held it
+        while (this.lock.tryLock()) {
+            try {
+                long l = this.limit;
+                while (this.window.get((int)l & MASK) == 1) {
+                    this.window.set((int)l & MASK, 0);
+                    l++;
+                }
+                this.limit = l;
+            } finally {
+                this.lock.unlock();
+            }
+            if (this.window.get((int)this.limit & MASK) == 0) break;
+        }
+    }
+    /**
+     * Returns the number of records whose inserts have all completed.
+     *
+     * @return      the limit below which every record number is acknowledged
+     */
+    public long acknowledged() {
+        return this.limit;
+    }
+}
@@ -0,0 +1,250 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.Random;
+
+/**
+ * Chooses which record a workload operation should touch.
+ *
+ * Records are numbered from zero up to (but not including) the number of
+ * records whose inserts have completed, which is tracked by an
+ * {@link AcknowledgedCounter} shared with {@link WorkloadDriver}. The
+ * distributions follow the ones used by YCSB: uniform, (scrambled) zipfian,
+ * and latest.
+ */
+public abstract class KeyChooser {
+    //CONSTANTS
+    /**
+     * The zipfian constant used by YCSB.
+     */
+    public static final double ZIPFIAN_CONSTANT = 0.99;
+
+    //INSTANCE VARIABLES
+    /**
+     * The shared counter of inserted records.
+     */
+    protected final AcknowledgedCounter inserted;
+
+    //CONSTRUCTOR
+    /**
+     * Creates a key chooser over the records counted by inserted.
+     *
+     * @param       inserted    the shared count of inserted records
+     */
+    protected KeyChooser(AcknowledgedCounter inserted) {
+        this.inserted = inserted;
+    }
+
+    //METHODS
+    /**
+     * Returns the number of the next record to be operated on.
+     *
+     * @param       rg      the random number generator of the calling thread
+     * @return      a record number in [0, inserted)
+     */
+    public abstract long next(Random rg);
+
+    /**
+     * Returns a key chooser for the given distribution name.
+     *
+     * @param       name        one of uniform, zipfian, or latest
+     * @param       records     the number of records in the load phase
+     * @param       inserted    the shared count of inserted records
+     * @return      the key chooser for the given distribution
+     * @throws      IllegalArgumentException    if name is not a distribution
+     */
+    public static KeyChooser forName(String name, long records, AcknowledgedCounter inserted) {
+        switch (name.toLowerCase()) {
+            case "uniform":
+                return new Uniform(inserted);
+            case "zipfian":
+                return new ScrambledZipfian(records, inserted);
+            case "latest":
+                return new Latest(records, inserted);
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + name);
+        }
+    }
+
+    //DISTRIBUTIONS
+    /**
+     * Chooses every inserted record with equal probability.
+     */
+    public static final class Uniform extends KeyChooser {
+        /**
+         * Creates a uniform key chooser.
+         *
+         * @param       inserted    the shared count of inserted records
+         */
+        public Uniform(AcknowledgedCounter inserted) {
+            super(inserted);
+        }
+        /**
+         * Returns a uniformly chosen record number.
+         *
+         * @param       rg      the random number generator of the caller
+         * @return      a record number in [0, inserted)
+         */
+        public long next(Random rg) {
+            return (long)(rg.nextDouble()*this.inserted.acknowledged());
+        }
+    }
+
+    /**
+     * Generates zipfian distributed ranks, where rank 0 is the most popular.
+     *
+     * This is the algorithm from "Quickly Generating Billion-Record Synthetic
+     * Databases" by Gray et al., which is also the one used by YCSB. Computing
+     * zeta is linear in the number of items, so it is only done once.
+     */
+    public static final class Zipfian {
+        /**
+         * The number of items to choose from.
+         */
+        private final long items;
+        /**
+         * The zipfian constant (theta).
+         */
+        private final double theta;
+        /**
+         * Precomputed zeta(items, theta).
+         */
+        private final double zetan;
+        /**
+         * Precomputed 1/(1 - theta).
+         */
+        private final double alpha;
+        /**
+         * Precomputed eta from Gray et al.
+         */
+        private final double eta;
+
+        /**
+         * Creates a zipfian generator over the given number of items.
+         *
+         * @param       items   the number of items to choose from
+         * @param       theta   the zipfian constant
+         */
+        public Zipfian(long items, double theta) {
+            this.items = items;
+            this.theta = theta;
+            this.zetan = zeta(items, theta);
+            this.alpha = 1.0/(1.0 - theta);
+            double zeta2 = zeta(2, theta);
+            this.eta = (1 - Math.pow(2.0/items, 1 - theta))/(1 - zeta2/this.zetan);
+        }
+        /**
+         * Returns the next zipfian distributed rank.
+         *
+         * @param       rg      the random number generator of the caller
+         * @return      a rank in [0, items)
+         */
+        public long next(Random rg) {
+            double u = rg.nextDouble();
+            double uz = u*this.zetan;
+            if (uz < 1.0) return 0;
+            if (uz < 1.0 + Math.pow(0.5, this.theta)) return 1;
+            long rank = (long)(this.items*Math.pow(this.eta*u - this.eta + 1, this.alpha));
+            return (rank < this.items) ? rank : this.items - 1;
+        }
+        /**
+         * Returns the sum of 1/i^theta for i from 1 to n.
+         *
+         * @param       n       the number of terms
+         * @param       theta   the zipfian constant
+         * @return      zeta(n, theta)
+         */
+        private static double zeta(long n, double theta) {
+            double sum = 0;
+            for (long i = 1; i <= n; i++) sum += 1/Math.pow(i, theta);
+            return sum;
+        }
+    }
+
+    /**
+     * Chooses records with a zipfian distribution, scattered over the keyspace.
+     *
+     * Without scrambling, the most popular records would be the ones with the
+     * smallest numbers, which were all inserted first. Hashing the zipfian
+     * rank spreads the popular records out, as YCSB does.
+     */
+    public static final class ScrambledZipfian extends KeyChooser {
+        /**
+         * The generator of zipfian ranks.
+         */
+        private final Zipfian zipfian;
+
+        /**
+         * Creates a scrambled zipfian key chooser.
+         *
+         * @param       records     the number of records in the load phase
+         * @param       inserted    the shared count of inserted records
+         */
+        public ScrambledZipfian(long records, AcknowledgedCounter inserted) {
+            super(inserted);
+            this.zipfian = new Zipfian(records, ZIPFIAN_CONSTANT);
+        }
+        /**
+         * Returns a scrambled zipfian chosen record number.
+         *
+         * @param       rg      the random number generator of the caller
+         * @return      a record number in [0, inserted)
+         */
+        public long next(Random rg) {
+            long hash = fnv(this.zipfian.next(rg));
+            return (hash & Long.MAX_VALUE) % this.inserted.acknowledged();
+        }
+    }
+
+    /**
+     * Chooses recently inserted records with a zipfian distribution.
+     *
+     * The zipfian rank is the distance back from the newest record. YCSB
+     * recomputes zeta as records are inserted. Here the ranks are drawn over
+     * the load phase record count instead, which keeps next lock-free.
+     */
+    public static final class Latest extends KeyChooser {
+        /**
+         * The generator of zipfian distances from the newest record.
+         */
+        private final Zipfian zipfian;
+
+        /**
+         * Creates a latest key chooser.
+         *
+         * @param       records     the number of records in the load phase
+         * @param       inserted    the shared count of inserted records
+         */
+        public Latest(long records, AcknowledgedCounter inserted) {
+            super(inserted);
+            this.zipfian = new Zipfian(records, ZIPFIAN_CONSTANT);
+        }
+        /**
+         * Returns a record number that favors recent insertions.
+         *
+         * @param       rg      the random number generator of the caller
+         * @return      a record number in [0, inserted)
+         */
+        public long next(Random rg) {
+            long newest = this.inserted.acknowledged() - 1;
+            long record = newest - this.zipfian.next(rg);
+            return (record >= 0) ? record : 0;
+        }
+    }
+
+    //MISC UTILITIES
+    /**
+     * Returns the 64 bit FNV-1a hash of a long.
+     *
+     * @param       val     the value to hash
+     * @return      the hash of val
+     */
+    public static long fnv(long val) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < 8; i++) {
+            hash ^= val & 0xFF;
+            hash *= 0x100000001B3L;
+            val >>>= 8;
+        }
+        return hash;
+    }
+}
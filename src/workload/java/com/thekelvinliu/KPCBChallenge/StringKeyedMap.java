@@ -0,0 +1,43 @@
+package com.thekelvinliu.KPCBChallenge;
+
+/**
+ * The map contract exercised by {@link WorkloadDriver}.
+ *
+ * This mirrors the user-facing methods of {@link FixedSizeHashMap}, so that
+ * the driver can be pointed at any implementation of a string-keyed map.
+ * Implementations used with more than one thread must be thread-safe. An
+ * implementation is loaded by name, so it must also provide a public
+ * constructor that takes the size of the map as its only argument.
+ *
+ * @param       <T>         the type of value that the map will hold
+ */
+public interface StringKeyedMap<T> {
+    /**
+     * Associates given key to a given value.
+     *
+     * @param       key     the key to be associated
+     * @param       value   the value to be associated
+     * @return      a boolean indicating success (true) or failure (false)
+     */
+    boolean set(String key, T value);
+    /**
+     * Returns the value associated with a given key (or null).
+     *
+     * @param       key     the key associated with the returned value
+     * @return      the value associated with key (or null)
+     */
+    T get(String key);
+    /**
+     * Deletes the entry with the given key and returns its value (or null).
+     *
+     * @param       key     the key of the entry to be deleted
+     * @return      the value associated with key or null
+     */
+    T delete(String key);
+    /**
+     * Returns the load (ratio of items to size) of the map.
+     *
+     * @return      the load of the map
+     */
+    float load();
+}
@@ -0,0 +1,77 @@
+package com.thekelvinliu.KPCBChallenge;
+
+/**
+ * A thread-safe {@link StringKeyedMap} backed by a {@link FixedSizeHashMap}.
+ *
+ * FixedSizeHashMap is not thread-safe, so every call is guarded by the
+ * monitor of this object. This is the default map used by
+ * {@link WorkloadDriver}.
+ *
+ * @param       <T>         the type of value that this map will hold
+ */
+public class SynchronizedFixedSizeHashMap<T> implements StringKeyedMap<T> {
+    //INSTANCE VARIABLES
+    /**
+     * The fixed-size hash map that all calls are delegated to.
+     */
+    private final FixedSizeHashMap<T> map;
+
+    //CONSTRUCTOR
+    /**
+     * Creates a synchronized wrapper around a new fixed-size hash map.
+     *
+     * @param       size    the fixed-size of the wrapped hash map
+     * @throws      IllegalArgumentException    if size is zero or negative
+     */
+    public SynchronizedFixedSizeHashMap(int size) {
+        this(size, 0);
+    }
+    /**
+     * Creates a synchronized wrapper around a new hash map with the given flags.
+     *
+     * @param       size    the (initial) size of the wrapped hash map
+     * @param       flags   the flags of the wrapped hash map
+     * @throws      IllegalArgumentException    if size is zero or negative
+     */
+    public SynchronizedFixedSizeHashMap(int size, int flags) {
+        this.map = new FixedSizeHashMap<T>(size, flags);
+    }
+
+    //METHODS
+    /**
+     * Associates given key to a given value in the wrapped hash map.
+     *
+     * @param       key     the key to be associated
+     * @param       value   the value to be associated
+     * @return      a boolean indicating success (true) or failure (false)
+     */
+    public synchronized boolean set(String key, T value) {
+        return this.map.set(key, value);
+    }
+    /**
+     * Returns the value associated with a given key in the wrapped hash map.
+     *
+     * @param       key     the key associated with the returned value
+     * @return      the value associated with key (or null)
+     */
+    public synchronized T get(String key) {
+        return this.map.get(key);
+    }
+    /**
+     * Deletes the entry with the given key from the wrapped hash map.
+     *
+     * @param       key     the key of the entry to be deleted
+     * @return      the value associated with key or null
+     */
+    public synchronized T delete(String key) {
+        return this.map.delete(key);
+    }
+    /**
+     * Returns the load of the wrapped hash map.
+     *
+     * @return      the load of the wrapped hash map
+     */
+    public synchronized float load() {
+        return this.map.load();
+    }
+}
@@ -0,0 +1,117 @@
+package com.thekelvinliu.KPCBChallenge;
+
+/**
+ * The core YCSB workloads, expressed as proportions of each operation.
+ *
+ * FixedSizeHashMap has no ordering over its keys and no update method, so two
+ * operations are adapted: a scan reads a run of consecutively numbered
+ * records, and an update deletes a record and then sets it again.
+ */
+public enum Workload {
+    /**
+     * Update heavy: 50% reads, 50% updates, zipfian.
+     */
+    A(0.50, 0.50, 0, 0, 0, "zipfian"),
+    /**
+     * Read mostly: 95% reads, 5% updates, zipfian.
+     */
+    B(0.95, 0.05, 0, 0, 0, "zipfian"),
+    /**
+     * Read only: 100% reads, zipfian.
+     */
+    C(1.00, 0, 0, 0, 0, "zipfian"),
+    /**
+     * Read latest: 95% reads, 5% inserts, latest.
+     */
+    D(0.95, 0, 0.05, 0, 0, "latest"),
+    /**
+     * Short ranges: 95% scans, 5% inserts, zipfian.
+     */
+    E(0, 0, 0.05, 0.95, 0, "zipfian"),
+    /**
+     * Read-modify-write: 50% reads, 50% read-modify-writes, zipfian.
+     */
+    F(0.50, 0, 0, 0, 0.50, "zipfian");
+
+    /**
+     * The kinds of operations that a workload is made of.
+     */
+    public enum Operation {
+        READ, UPDATE, INSERT, SCAN, READ_MODIFY_WRITE
+    }
+
+    /**
+     * The proportion of reads.
+     */
+    private final double read;
+    /**
+     * The proportion of updates.
+     */
+    private final double update;
+    /**
+     * The proportion of inserts.
+     */
+    private final double insert;
+    /**
+     * The proportion of scans.
+     */
+    private final double scan;
+    /**
+     * The proportion of read-modify-writes.
+     */
+    private final double readModifyWrite;
+    /**
+     * The name of the request distribution YCSB uses for this workload.
+     */
+    private final String distribution;
+
+    /**
+     * Creates a workload with the given operation proportions.
+     *
+     * @param       read            the proportion of reads
+     * @param       update          the proportion of updates
+     * @param       insert          the proportion of inserts
+     * @param       scan            the proportion of scans
+     * @param       readModifyWrite the proportion of read-modify-writes
+     * @param       distribution    the default request distribution
+     */
+    Workload(double read, double update, double insert, double scan,
+             double readModifyWrite, String distribution) {
+        this.read = read;
+        this.update = update;
+        this.insert = insert;
+        this.scan = scan;
+        this.readModifyWrite = readModifyWrite;
+        this.distribution = distribution;
+    }
+
+    /**
+     * Returns the operation selected by a uniform random number in [0, 1).
+     *
+     * @param       u       a uniform random number in [0, 1)
+     * @return      the selected operation
+     */
+    public Operation choose(double u) {
+        if ((u -= this.read) < 0) return Operation.READ;
+        if ((u -= this.update) < 0) return Operation.UPDATE;
+        if ((u -= this.insert) < 0) return Operation.INSERT;
+        if ((u -= this.scan) < 0) return Operation.SCAN;
+        return Operation.READ_MODIFY_WRITE;
+    }
+    /**
+     * Returns the proportion of operations that are inserts.
+     *
+     * @return      the proportion of inserts
+     */
+    public double insertProportion() {
+        return this.insert;
+    }
+    /**
+     * Returns the name of the request distribution YCSB uses by default.
+     *
+     * @return      the default request distribution
+     */
+    public String defaultDistribution() {
+        return this.distribution;
+    }
+}
@@ -0,0 +1,357 @@
+package com.thekelvinliu.KPCBChallenge;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * A YCSB-style, multi-threaded workload driver for string-keyed maps.
+ *
+ * The driver first loads a number of records into the map from a single
+ * thread, and then runs one of the core YCSB workloads (A through F) from a
+ * configurable number of threads. Each thread records the latency of every
+ * operation into its own {@link LatencyHistogram}, and these are merged to
+ * report throughput and latency percentiles per operation.
+ * <p>
+ * Options are given as pairs of arguments:<p>
+ * --workload       one of A, B, C, D, E, or F (default A)<p>
+ * --distribution   uniform, zipfian, or latest (default depends on workload)<p>
+ * --threads        the number of threads (default 1)<p>
+ * --records        the number of records to load (default 100000)<p>
+ * --operations     the total number of operations to run (default 1000000)<p>
+ * --size           the size of the map (default fits every insert, with
+ *                  headroom for the random number of inserts)<p>
+ * --map            a {@link StringKeyedMap} class with a constructor taking
+ *                  the size (default SynchronizedFixedSizeHashMap)<p>
+ * --value-length   the length of each value (default 100)<p>
+ * --growable       true to make the default map growable (default false),
+ *                  in which case size is its initial size; this cannot be
+ *                  combined with --map<p>
+ * --seed           the seed for all random number generators
+ */
+public class WorkloadDriver {
+    //CONSTANTS
+    /**
+     * The number of distinct values that are cycled through.
+     */
+    private static final int VALUE_POOL = 1024;
+    /**
+     * The largest number of records read by a single scan.
+     */
+    private static final int MAX_SCAN_LENGTH = 100;
+    /**
+     * The percentiles reported for each operation.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    //INSTANCE VARIABLES
+    /**
+     * The map that the workload runs against.
+     */
+    private final StringKeyedMap<String> map;
+    /**
+     * The workload to run.
+     */
+    private final Workload workload;
+    /**
+     * Chooses the records that operations touch.
+     */
+    private final KeyChooser chooser;
+    /**
+     * Hands out record numbers to insert, and counts completed inserts.
+     */
+    private final AcknowledgedCounter inserted;
+    /**
+     * The pool of values that are set in the map.
+     */
+    private final String[] values;
+
+    //CONSTRUCTOR
+    /**
+     * Creates a driver for the given map and workload.
+     *
+     * @param       map             the map to run against
+     * @param       workload        the workload to run
+     * @param       distribution    the name of the request distribution
+     * @param       records         the number of records in the load phase
+     * @param       valueLength     the length of each value
+     * @param       seed            the seed used to generate values
+     */
+    public WorkloadDriver(StringKeyedMap<String> map, Workload workload,
+                          String distribution, long records, int valueLength,
+                          long seed) {
+        this.map = map;
+        this.workload = workload;
+        this.inserted = new AcknowledgedCounter(0);
+        this.chooser = KeyChooser.forName(distribution, records, this.inserted);
+        this.values = new String[VALUE_POOL];
+        Random rg = new Random(seed);
+        char[] chars = new char[valueLength];
+        for (int i = 0; i < VALUE_POOL; i++) {
+            for (int j = 0; j < valueLength; j++) chars[j] = (char)('a' + rg.nextInt(26));
+            this.values[i] = new String(chars);
+        }
+    }
+
+    //PHASES
+    /**
+     * Inserts the given number of records from the calling thread.
+     *
+     * @param       records     the number of records to insert
+     * @return      the number of inserts that failed
+     */
+    public long load(long records) {
+        long failed = 0;
+        for (long i = 0; i < records; i++) {
+            long record = this.inserted.next();
+            if (!this.map.set(key(record), this.values[(int)(record%VALUE_POOL)])) {
+                failed++;
+            }
+            this.inserted.acknowledge(record);
+        }
+        return failed;
+    }
+    /**
+     * Runs the workload from the given number of threads.
+     *
+     * Operations are split evenly between threads. The returned array holds
+     * one histogram per {@link Workload.Operation}, and failures holds the
+     * number of failed operations of each kind.
+     *
+     * @param       threads     the number of threads
+     * @param       operations  the total number of operations
+     * @param       seed        the seed for the threads' random generators
+     * @param       failures    filled with the failure count of each operation
+     * @return      the merged latency histogram of each operation
+     * @throws      InterruptedException    if interrupted while waiting
+     */
+    public LatencyHistogram[] run(int threads, long operations, long seed,
+                                  long[] failures) throws InterruptedException {
+        int kinds = Workload.Operation.values().length;
+        final LatencyHistogram[][] histograms = new LatencyHistogram[threads][kinds];
+        final long[][] failed = new long[threads][kinds];
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            final long count = operations/threads + ((t < operations%threads) ? 1 : 0);
+            final Random rg = new Random(seed + t);
+            for (int k = 0; k < kinds; k++) histograms[t][k] = new LatencyHistogram();
+            workers[t] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (long i = 0; i < count; i++) {
+                        operate(rg, histograms[id], failed[id]);
+                    }
+                }
+            }, "workload-" + t);
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        //merge the results of every thread
+        LatencyHistogram[] merged = new LatencyHistogram[kinds];
+        for (int k = 0; k < kinds; k++) {
+            merged[k] = new LatencyHistogram();
+            for (int t = 0; t < threads; t++) {
+                merged[k].add(histograms[t][k]);
+                failures[k] += failed[t][k];
+            }
+        }
+        return merged;
+    }
+
+    //OPERATIONS (PRIVATE)
+    /**
+     * Performs and times a single randomly chosen operation.
+     *
+     * Keys and values are chosen before the clock starts, so only the calls
+     * to the map are timed.
+     *
+     * @param       rg          the random number generator of this thread
+     * @param       histograms  this thread's histogram for each operation
+     * @param       failed      this thread's failure count for each operation
+     */
+    private void operate(Random rg, LatencyHistogram[] histograms, long[] failed) {
+        Workload.Operation op = this.workload.choose(rg.nextDouble());
+        String value = this.values[rg.nextInt(VALUE_POOL)];
+        boolean ok;
+        long start;
+        long end;
+        switch (op) {
+            case READ: {
+                String key = key(this.chooser.next(rg));
+                start = System.nanoTime();
+                ok = this.map.get(key) != null;
+                end = System.nanoTime();
+                break;
+            }
+            case UPDATE: {
+                String key = key(this.chooser.next(rg));
+                start = System.nanoTime();
+                ok = this.map.delete(key) != null;
+                ok &= this.map.set(key, value);
+                end = System.nanoTime();
+                break;
+            }
+            case INSERT: {
+                //other threads only choose this record once it is acknowledged
+                long record = this.inserted.next();
+                String key = key(record);
+                start = System.nanoTime();
+                ok = this.map.set(key, value);
+                end = System.nanoTime();
+                this.inserted.acknowledge(record);
+                break;
+            }
+            case SCAN: {
+                long first = this.chooser.next(rg);
+                long last = Math.min(first + rg.nextInt(MAX_SCAN_LENGTH) + 1,
+                                     this.inserted.acknowledged());
+                String[] keys = new String[(int)(last - first)];
+                for (int i = 0; i < keys.length; i++) keys[i] = key(first + i);
+                ok = true;
+                start = System.nanoTime();
+                for (String key : keys) ok &= this.map.get(key) != null;
+                end = System.nanoTime();
+                break;
+            }
+            case READ_MODIFY_WRITE:
+            default: {
+                String key = key(this.chooser.next(rg));
+                start = System.nanoTime();
+                ok = this.map.get(key) != null;
+                ok &= this.map.delete(key) != null;
+                ok &= this.map.set(key, value);
+                end = System.nanoTime();
+                break;
+            }
+        }
+        histograms[op.ordinal()].record(end - start);
+        if (!ok) failed[op.ordinal()]++;
+    }
+    /**
+     * Returns the key of the given record.
+     *
+     * Like YCSB, record numbers are hashed so that keys are not inserted in
+     * sorted order.
+     *
+     * @param       record  the number of a record
+     * @return      the key of the record
+     */
+    private static String key(long record) {
+        return "user" + (KeyChooser.fnv(record) & Long.MAX_VALUE);
+    }
+
+    //DRIVER
+    /**
+     * Parses options, loads the map, runs the workload, and prints a report.
+     *
+     * @param       args    pairs of options and their values
+     * @throws      Exception   if the map cannot be created or the run fails
+     */
+    public static void main(String[] args) throws Exception {
+        Workload workload = Workload.A;
+        String distribution = null;
+        String mapClass = null;
+        int threads = 1;
+        long records = 100000;
+        long operations = 1000000;
+        long size = -1;
+        int valueLength = 100;
+        long seed = System.nanoTime();
+        boolean growable = false;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--workload": workload = Workload.valueOf(value.toUpperCase()); break;
+                case "--distribution": distribution = value; break;
+                case "--threads": threads = Integer.parseInt(value); break;
+                case "--records": records = Long.parseLong(value); break;
+                case "--operations": operations = Long.parseLong(value); break;
+                case "--size": size = Long.parseLong(value); break;
+                case "--map": mapClass = value; break;
+                case "--value-length": valueLength = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--growable": growable = Boolean.parseBoolean(value); break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (growable && mapClass != null) {
+            throw new IllegalArgumentException("--growable only applies to the default map, not to --map.");
+        }
+        if (mapClass == null) mapClass = SynchronizedFixedSizeHashMap.class.getName();
+        if (distribution == null) distribution = workload.defaultDistribution();
+        //by default, leave room for every insert of the run phase
+        if (size == -1) size = defaultSize(records, operations, workload.insertProportion());
+        StringKeyedMap<String> map;
+        if (growable) {
+            map = new SynchronizedFixedSizeHashMap<String>((int)size, FixedSizeHashMap.GROWABLE);
+            mapClass = "growable " + mapClass;
+        } else {
+            @SuppressWarnings("unchecked")
+            StringKeyedMap<String> loaded = (StringKeyedMap<String>)Class.forName(mapClass)
+                .getConstructor(int.class).newInstance((int)size);
+            map = loaded;
+        }
+        WorkloadDriver driver = new WorkloadDriver(map, workload, distribution,
+                                                   records, valueLength, seed);
+        System.out.printf("Workload %s, %s distribution, %d thread(s), %s of size %d.%n",
+                          workload, distribution, threads, mapClass, size);
+        //load phase
+        long start = System.nanoTime();
+        long loadFailures = driver.load(records);
+        double seconds = (System.nanoTime() - start)/1e9;
+        System.out.printf("Loaded %d records in %.3f s (%.0f ops/sec, %d failed), load %.3f.%n",
+                          records, seconds, records/seconds, loadFailures, map.load());
+        //run phase
+        long[] failures = new long[Workload.Operation.values().length];
+        start = System.nanoTime();
+        LatencyHistogram[] histograms = driver.run(threads, operations, seed, failures);
+        seconds = (System.nanoTime() - start)/1e9;
+        System.out.printf("Ran %d operations in %.3f s (%.0f ops/sec), load %.3f.%n",
+                          operations, seconds, operations/seconds, map.load());
+        report(histograms, failures);
+    }
+    /**
+     * Returns a size that leaves room for every insert of the run phase.
+     *
+     * Each operation is an insert with probability p, so the number of
+     * inserts is binomial rather than exactly operations*p. Six standard
+     * deviations are added on top of the expected count, which makes running
+     * out of room vanishingly unlikely.
+     *
+     * @param       records     the number of records in the load phase
+     * @param       operations  the number of operations in the run phase
+     * @param       p           the proportion of operations that are inserts
+     * @return      the default size of the map
+     */
+    private static long defaultSize(long records, long operations, double p) {
+        double expected = operations*p;
+        double headroom = 6*Math.sqrt(expected*(1 - p));
+        return records + (long)Math.ceil(expected + headroom) + 1;
+    }
+    /**
+     * Prints the latency percentiles (in microseconds) of each operation.
+     *
+     * @param       histograms  the latency histogram of each operation
+     * @param       failures    the failure count of each operation
+     */
+    private static void report(LatencyHistogram[] histograms, long[] failures) {
+        System.out.printf("%-18s %10s %8s %9s", "operation", "count", "failed", "mean(us)");
+        for (double p : PERCENTILES) System.out.printf(" %9s", "p" + p);
+        System.out.printf(" %9s%n", "max");
+        for (Workload.Operation op : Workload.Operation.values()) {
+            LatencyHistogram h = histograms[op.ordinal()];
+            if (h.count() == 0) continue;
+            System.out.printf("%-18s %10d %8d %9.2f", op, h.count(),
+                              failures[op.ordinal()], h.mean()/1e3);
+            for (double p : PERCENTILES) System.out.printf(" %9.2f", h.percentile(p)/1e3);
+            System.out.printf(" %9.2f%n", h.max()/1e3);
+        }
+    }
+}